@@ -0,0 +1,85 @@
+#!/bin/bash
+
+# 以守护进程模式（java -jar hosts-subscribe.jar --daemon）替代 ipv6-monitor.sh 轮询脚本
+# 接收 jar 路径和部署目录参数，部署目录默认为/data
+# 命令示例：bash deploy-daemon.sh ./hosts-subscribe.jar /data
+#   /etc/init.d/hosts-subscribe stop      # 停止服务
+#   /etc/init.d/hosts-subscribe disable   # 禁用开机自启
+# 邮箱配置（email_config.properties）、通知配置（notifier_config.properties）放在部署目录下
+
+
+JAR_PATH=${1:-"./hosts-subscribe.jar"}
+DEPLOY_DIR=${2:-"/data"}
+
+if [ ! -f "$JAR_PATH" ]; then
+    echo "找不到 $JAR_PATH，请先执行 mvn package"
+    exit 1
+fi
+
+# 检查并创建部署目录
+if [ ! -d "$DEPLOY_DIR" ]; then
+    echo "创建部署目录: $DEPLOY_DIR"
+    mkdir -p "$DEPLOY_DIR"
+fi
+
+# 检查 java 是否已安装
+if ! command -v java > /dev/null 2>&1; then
+    echo "正在安装 java..."
+    opkg update
+    opkg install openjdk-17-jre-headless || opkg install openjdk8-jre
+fi
+
+cp "$JAR_PATH" "$DEPLOY_DIR/hosts-subscribe.jar"
+
+# AppCDS 归档：JDK 13 及以上在首次运行退出时记录加载的类（-XX:ArchiveClassesAtExit），之后的启动直接映射归档
+# 归档与 jar 绑定，重新部署时删除旧归档；JDK 8 不支持动态归档，不启用
+CDS_ARCHIVE="$DEPLOY_DIR/hosts-subscribe.jsa"
+rm -f "$CDS_ARCHIVE"
+if java -XX:+PrintFlagsFinal -version 2>/dev/null | grep -q ArchiveClassesAtExit; then
+    CDS_ENABLED=1
+else
+    CDS_ENABLED=0
+fi
+
+# 停止旧的轮询脚本
+if [ -x /etc/init.d/ipv6-monitor ]; then
+    /etc/init.d/ipv6-monitor stop
+    /etc/init.d/ipv6-monitor disable
+fi
+
+# 创建服务管理脚本
+# 小堆、串行 GC、只用 C1 编译，减少内存占用和启动时间
+# 订阅区块的主机名表在堆外，堆外内存上限默认与堆相同（32m），单独放宽到 256m，百万级订阅无需加大堆
+cat > /etc/init.d/hosts-subscribe << EOF
+#!/bin/sh /etc/rc.common
+
+START=99
+USE_PROCD=1
+
+start_service() {
+    CDS_OPTS=""
+    if [ "$CDS_ENABLED" = 1 ]; then
+        if [ -f "$CDS_ARCHIVE" ]; then
+            CDS_OPTS="-Xshare:auto -XX:SharedArchiveFile=$CDS_ARCHIVE"
+        else
+            CDS_OPTS="-XX:ArchiveClassesAtExit=$CDS_ARCHIVE"
+        fi
+    fi
+    procd_open_instance
+    procd_set_param command java -Xms8m -Xmx32m -Xss256k -XX:+UseSerialGC -XX:TieredStopAtLevel=1 -XX:MaxDirectMemorySize=256m \$CDS_OPTS \\
+        -Djava.awt.headless=true -jar "$DEPLOY_DIR/hosts-subscribe.jar" --daemon
+    procd_set_param respawn
+    procd_set_param stdout 1
+    procd_set_param stderr 1
+    procd_close_instance
+}
+EOF
+
+# 添加可执行权限
+chmod +x /etc/init.d/hosts-subscribe
+
+# 启用自启服务
+/etc/init.d/hosts-subscribe enable
+/etc/init.d/hosts-subscribe start
+
+echo "守护进程已部署到 $DEPLOY_DIR 并配置为开机自动启动"
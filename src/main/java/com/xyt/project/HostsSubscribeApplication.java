@@ -2,27 +2,45 @@ package com.xyt.project;
 
 
 import cn.hutool.core.util.StrUtil;
-import com.google.common.base.Throwables;
 import com.xyt.project.config.AppConfiguration;
+import com.xyt.project.email.EmailService;
 import com.xyt.project.listener.CopyContentFilter;
+import com.xyt.project.model.IPDiff;
 import com.xyt.project.model.IPInfoDTO;
 import com.xyt.project.model.IPv6Address;
+import com.xyt.project.notifier.EmailNotifier;
+import com.xyt.project.notifier.NotifierConfig;
+import com.xyt.project.notifier.NotifierGroup;
+import com.xyt.project.service.AsyncHostsService;
 import com.xyt.project.service.HostsFileService;
+import com.xyt.project.service.HostsFileWatcher;
+import com.xyt.project.service.HostsTransaction;
+import com.xyt.project.service.IPMonitor;
+import com.xyt.project.service.NetworkChangeSource;
 import com.xyt.project.service.NetworkService;
+import com.xyt.project.service.NotificationOutbox;
+import com.xyt.project.service.SubscriptionService;
 import com.xyt.project.ui.EmailConfigView;
-import com.xyt.project.util.AdminPermissionHelper;
+import com.xyt.project.ui.HostsContentView;
 import com.xyt.project.util.AppUtil;
+import com.xyt.project.util.IPAddressParser;
+import com.xyt.project.util.StartupMetrics;
+import com.xyt.project.util.Throwables;
 import lombok.extern.slf4j.Slf4j;
 
-import javax.mail.MessagingException;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * 本地主机管理器
@@ -30,6 +48,10 @@ import java.util.List;
 @Slf4j
 public class HostsSubscribeApplication extends JFrame {
 
+    /**
+     * 有网络变化事件时的兜底检测间隔（秒）
+     */
+    private static final long EVENT_FALLBACK_CHECK_SECONDS = 300;
 
     /**
      * 主面板
@@ -57,32 +79,106 @@ public class HostsSubscribeApplication extends JFrame {
 
     private NetworkService networkService;
 
-    private AppConfiguration appConfiguration;
+    /**
+     * 阻塞的 hosts 读写和网络操作都经由它在后台执行，不占用界面线程
+     */
+    private AsyncHostsService asyncHostsService;
+
+    private SubscriptionService subscriptionService;
+
+    private volatile AppConfiguration appConfiguration;
 
     private CopyContentFilter copyContentFilter;
 
+    /**
+     * 邮箱设置界面，首次打开时创建
+     */
     private EmailConfigView emailConfigView;
 
+    private HostsContentView hostsContentView;
+
     /**
      * 定时检查IP变更的任务
      */
-    private Timer ipCheckTimer;
+    private volatile IPMonitor ipMonitor;
+
+    private NetworkChangeSource networkChangeSource;
+
+    /**
+     * IP变更通知发件箱
+     */
+    private volatile NotificationOutbox notificationOutbox;
+
+    /**
+     * IP变更时并行通知的所有方式
+     */
+    private volatile NotifierGroup notifierGroup;
+
+    private volatile EmailNotifier emailNotifier;
+
+    /**
+     * 后台加载配置、发件箱并启动检测，完成后才能使用邮件设置
+     */
+    private CompletableFuture<Void> servicesReady;
 
 
     public HostsSubscribeApplication() {
         log.info("初始化程序");
         hostsFileService = new HostsFileService();
         networkService = new NetworkService();
+        asyncHostsService = new AsyncHostsService(hostsFileService, networkService);
+        subscriptionService = new SubscriptionService(hostsFileService);
         copyContentFilter = new CopyContentFilter();
-        emailConfigView = new EmailConfigView(this, networkService);
-        this.appConfiguration = new AppConfiguration(emailConfigView.getEmailService());
+        hostsContentView = new HostsContentView(this, asyncHostsService);
         initWindow();
-        initSystemTray();
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                StartupMetrics.mark(StartupMetrics.FIRST_WINDOW);
+            }
+        });
+        // 窗口显示后再创建托盘图标
+        SwingUtilities.invokeLater(this::initSystemTray);
+        // 配置、发件箱、hosts 监听和IP检测在后台启动，不推迟窗口显示
+        servicesReady = asyncHostsService.submit(() -> {
+            startServices();
+            return null;
+        });
+        // 启动失败时hosts监听和IP检测都没有运行，在控制台提示，不让界面看起来一切正常
+        onEdt(servicesReady, ready -> {
+        }, e -> consoleArea.setText("程序初始化失败，IP检测和hosts文件监听未启动: " + e.getMessage()));
+    }
+
+    /**
+     * 在后台线程上加载配置和发件箱，启动 hosts 文件监听和IP检测
+     */
+    private void startServices() {
+        String appDir = AppUtil.getAppDir();
+        appConfiguration = new AppConfiguration(new EmailService());
+        emailNotifier = new EmailNotifier(AppConfiguration::getEmailConfig, NotifierConfig.loadTemplates(appDir, "email"));
+        notificationOutbox = new NotificationOutbox(new File(appDir), emailNotifier);
+        notifierGroup = NotifierConfig.createGroup(appDir, notificationOutbox);
+        // 监听hosts文件的外部修改
+        startHostsWatcher();
         // 启动IP检查定时器
         startIPCheckTimer();
+    }
 
+    /**
+     * 打开邮箱设置，首次打开时创建界面
+     */
+    private void emailAction() {
+        onEdt(servicesReady, ready -> {
+            if (emailConfigView == null) {
+                emailConfigView = new EmailConfigView(this, networkService, emailNotifier);
+            }
+            emailConfigView.initEmailView();
+        }, e -> JOptionPane.showMessageDialog(this, "程序初始化失败: " + e.getMessage(), "错误", JOptionPane.ERROR_MESSAGE));
     }
 
+    /**
+     * 启动图形界面，命令行参数由 {@link Launcher} 处理
+     */
     public static void main(String[] args) {
         // 设置外观和感觉
         try {
@@ -121,37 +217,47 @@ public class HostsSubscribeApplication extends JFrame {
         mainPanel.add(endPanel, BorderLayout.SOUTH);
     }
 
+    private void startHostsWatcher() {
+        HostsFileWatcher watcher = hostsFileService.getWatcher();
+        watcher.addListener(diff -> SwingUtilities.invokeLater(() -> consoleArea.append(
+                StrUtil.format("\nhosts文件已被外部修改：新增{}条，删除{}条", diff.getAdded().size(), diff.getRemoved().size()))));
+        try {
+            watcher.start();
+        } catch (IOException e) {
+            log.error("启动hosts文件监听失败：{}", Throwables.getStackTraceAsString(e));
+        }
+    }
+
     private void startIPCheckTimer() {
-        // 创建一个定时任务，每10秒执行一次
-        ipCheckTimer = new Timer(10000, e -> notifyIPChange());
-        ipCheckTimer.start();
+        // 有网络变化事件时由事件触发检测，定时检测只作兜底；否则按配置间隔（默认10秒）检测
+        networkChangeSource = networkService.startChangeSource(() -> {
+            IPMonitor monitor = ipMonitor;
+            if (monitor != null) {
+                monitor.triggerNow();
+            }
+        });
+        long interval = networkChangeSource != null ? EVENT_FALLBACK_CHECK_SECONDS : AppConfiguration.getIpCheckIntervalSeconds();
+        ipMonitor = new IPMonitor(this::notifyIPChange, interval, TimeUnit.SECONDS);
+        ipMonitor.start();
     }
 
     private void stopIPCheckTimer() {
-        if (ipCheckTimer != null && ipCheckTimer.isRunning()) {
-            ipCheckTimer.stop();
+        if (networkChangeSource != null) {
+            networkChangeSource.stop();
+        }
+        if (ipMonitor != null) {
+            ipMonitor.shutdown();
         }
     }
 
-    private void notifyIPChange() {
-        new Thread(() -> {
-            List<IPInfoDTO> ipInfoDTOS = networkService.filterIPList();
-            if ((!AppConfiguration.getEmailConfig().getAutoSend()) || ipInfoDTOS.isEmpty()) {
-                return;
-            }
-            boolean isSendSuccess = false;
-            try {
-                emailConfigView.sendEmail(AppConfiguration.getEmailConfig(), ipInfoDTOS);
-                isSendSuccess = true;
-            } catch (MessagingException e) {
-                log.error("发送邮件异常：{}", Throwables.getStackTraceAsString(e));
-            }finally {
-                if (isSendSuccess) {
-                    networkService.saveLocalIP(AppUtil.getAppDir());
-                }
-            }
-        }).start();
-
+    private void notifyIPChange() throws IOException, InterruptedException {
+        IPDiff diff = networkService.filterIPList();
+        if (!diff.isEmpty()) {
+            // 通知只写入各方式的发件箱，由后台线程发送和重试；写入失败时抛出异常，不保存地址，下次检测重新通知
+            notifierGroup.notify(AppConfiguration.getEmailConfig().getDeviceName(), diff);
+            networkService.saveLocalIP(diff, AppUtil.getAppDir());
+        }
+        StartupMetrics.mark(StartupMetrics.FIRST_IP_CHECK);
     }
 
 
@@ -226,12 +332,8 @@ public class HostsSubscribeApplication extends JFrame {
             popup.add(openItem);
 
             MenuItem exitItem = new MenuItem("Exit");
-            exitItem.addActionListener(e -> {
-                // 停止IP检查定时器
-                stopIPCheckTimer();
-                // 退出程序
-                System.exit(0);
-            });
+            // 与窗口上的退出按钮一样确认并清理后再退出
+            exitItem.addActionListener(e -> exit());
             popup.add(exitItem);
 
             trayIcon.setPopupMenu(popup);
@@ -276,7 +378,7 @@ public class HostsSubscribeApplication extends JFrame {
 
         JPanel toolsButtonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         JButton emailNotifications = new JButton("邮箱订阅设置");
-        emailNotifications.addActionListener(e -> emailConfigView.initEmailView()); // 添加事件监听器
+        emailNotifications.addActionListener(e -> emailAction()); // 添加事件监听器
         toolsButtonPanel.add(emailNotifications);
 
         JButton displayIpButton = new JButton("显示本机IP信息");
@@ -287,6 +389,10 @@ public class HostsSubscribeApplication extends JFrame {
         viewButton.addActionListener(e -> viewAction());
         toolsButtonPanel.add(viewButton);
 
+        JButton subscribeButton = new JButton("更新订阅");
+        subscribeButton.addActionListener(e -> subscribeAction());
+        toolsButtonPanel.add(subscribeButton);
+
 
         toolPanel.add(toolsButtonPanel, BorderLayout.SOUTH);
 
@@ -381,32 +487,62 @@ public class HostsSubscribeApplication extends JFrame {
 
     // 查看按钮事件处理方法
     private void viewAction() {
-        try {
-            String content = hostsFileService.readHostsFile();
-
-            consoleArea.setText("hosts文件内容:\n\n" + content);
-        } catch (IOException e) {
+        consoleArea.setText("正在读取hosts文件...");
+        onEdt(asyncHostsService.openLineIndex(), index -> {
+            consoleArea.setText(StrUtil.format("hosts文件共{}行", index.lineCount()));
+            hostsContentView.show(index);
+        }, e -> {
             consoleArea.setText("读取hosts文件时出错: " + e.getMessage());
             JOptionPane.showMessageDialog(HostsSubscribeApplication.this, "无法读取hosts文件: " + e.getMessage(), "错误", JOptionPane.ERROR_MESSAGE);
-        }
+        });
+    }
 
+    /**
+     * 更新订阅：拉取有变化的订阅，整批写入hosts文件
+     */
+    private void subscribeAction() {
+        consoleArea.setText("正在更新订阅...");
+        String appDir = AppUtil.getAppDir();
+        // 拉取和写入都在 I/O 线程上进行，写入与其他 hosts 操作一样经过 asyncHostsService（需要时提权）
+        CompletableFuture<String> update = asyncHostsService.submit(() -> subscriptionService.loadSubscriptions(appDir))
+                .thenCompose(subscriptions -> {
+                    if (subscriptions.isEmpty()) {
+                        return CompletableFuture.completedFuture("未配置订阅，请在 subscription_config.properties 中添加 subscription.<名称>.url");
+                    }
+                    return asyncHostsService.submit(() -> subscriptionService.fetchUpdates(subscriptions, appDir))
+                            .thenCompose(result -> {
+                                String failures = result.getFailures().isEmpty() ? ""
+                                        : "\n拉取失败的订阅：" + String.join("，", result.getFailures());
+                                HostsTransaction transaction = result.getTransaction();
+                                if (transaction.isEmpty()) {
+                                    return CompletableFuture.completedFuture("订阅均未变化" + failures);
+                                }
+                                return asyncHostsService.apply(transaction).thenCompose(changed -> asyncHostsService.submit(() -> {
+                                    subscriptionService.saveSubscriptions(subscriptions, appDir);
+                                    return StrUtil.format("成功更新{}个订阅", result.getUpdated().size()) + failures;
+                                }));
+                            });
+                });
+        onEdt(update, consoleArea::setText, e -> consoleArea.setText("更新订阅时出错: " + Throwables.getRootCause(e).getMessage()));
     }
 
     /**
      * 刷新
      */
     private void refreshAction() {
-        List<IPInfoDTO> ipList = networkService.getLocalNetworkAddressList();
-        List<String> linList = new ArrayList<>();
-        for (IPInfoDTO ipInfoDTO : ipList) {
-            String displayName = ipInfoDTO.getNetworkName();
-            String ipType = ipInfoDTO.getIpType();
-            String addressType = ipInfoDTO.getAddressType();
-            String hostAddress = ipInfoDTO.getIpAddress();
-            String format = StrUtil.format("网卡名称：{}，{}地址{}：{}", displayName, ipType, addressType, hostAddress);
-            linList.add(format);
-        }
-        consoleArea.setText(StrUtil.join("\n", linList));
+        consoleArea.setText("正在获取网卡地址...");
+        onEdt(asyncHostsService.getLocalNetworkAddressList(), ipList -> {
+            List<String> linList = new ArrayList<>();
+            for (IPInfoDTO ipInfoDTO : ipList) {
+                String displayName = ipInfoDTO.getNetworkName();
+                String ipType = ipInfoDTO.getIpType();
+                String addressType = ipInfoDTO.getAddressType();
+                String hostAddress = ipInfoDTO.getIpAddress();
+                String format = StrUtil.format("网卡名称：{}，{}地址{}：{}", displayName, ipType, addressType, hostAddress);
+                linList.add(format);
+            }
+            consoleArea.setText(StrUtil.join("\n", linList));
+        }, e -> consoleArea.setText("获取网卡地址时出错: " + e.getMessage()));
     }
 
 
@@ -461,22 +597,13 @@ public class HostsSubscribeApplication extends JFrame {
         // 构建hosts文件条目
         String hostsEntry = ip + " " + String.join(" ", hostnames);
 
-        // 更新hosts文件
-        try {
-            // 检查是否具有管理员权限
-            if (!AdminPermissionHelper.isAdmin()) {
-                // 请求管理员权限执行更新操作
-                AdminPermissionHelper.updateHostsWithAdminPrivileges(hostname, Collections.singletonList(ip));
-                consoleArea.setText("成功更新hosts文件:\n" + hostsEntry);
-            } else {
-                // 已有管理员权限，直接更新
-                hostsFileService.updateHostsFile(hostname, Collections.singletonList(ip));
-                consoleArea.setText("成功更新hosts文件:\n" + hostsEntry);
-            }
-        } catch (IOException ex) {
-            consoleArea.setText("更新hosts文件时出错: " + ex.getMessage());
-            JOptionPane.showMessageDialog(this, "无法更新hosts文件: " + ex.getMessage(), "错误", JOptionPane.ERROR_MESSAGE);
-        }
+        // 更新hosts文件，没有管理员权限时由提权进程写入
+        consoleArea.setText("正在更新hosts文件...");
+        onEdt(asyncHostsService.apply(new HostsTransaction().upsert(hostname, Collections.singletonList(ip))),
+                changed -> consoleArea.setText("成功更新hosts文件:\n" + hostsEntry), ex -> {
+                    consoleArea.setText("更新hosts文件时出错: " + ex.getMessage());
+                    JOptionPane.showMessageDialog(this, "无法更新hosts文件: " + ex.getMessage(), "错误", JOptionPane.ERROR_MESSAGE);
+                });
     }
 
     /**
@@ -534,23 +661,7 @@ public class HostsSubscribeApplication extends JFrame {
      * @return 是否为有效IPv4地址
      */
     private boolean isValidIPv4Address(String ip) {
-        String[] parts = ip.split("\\.");
-        if (parts.length != 4) {
-            return false;
-        }
-
-        for (String part : parts) {
-            try {
-                int num = Integer.parseInt(part);
-                if (num < 0 || num > 255) {
-                    return false;
-                }
-            } catch (NumberFormatException e) {
-                return false;
-            }
-        }
-
-        return true;
+        return IPAddressParser.isValidIPv4(ip);
     }
 
 
@@ -574,28 +685,43 @@ public class HostsSubscribeApplication extends JFrame {
         );
 
         if (option == JOptionPane.YES_OPTION) {
-            try {
-                // 检查是否具有管理员权限
-                if (!AdminPermissionHelper.isAdmin()) {
-                    // 请求管理员权限执行删除操作
-                    AdminPermissionHelper.deleteHostsWithAdminPrivileges(host);
+            // 没有管理员权限时由提权进程删除
+            consoleArea.setText("正在删除主机名 \"" + host + "\" 的记录...");
+            onEdt(asyncHostsService.apply(new HostsTransaction().delete(host)), deleted -> {
+                if (deleted) {
                     consoleArea.setText("成功删除主机名 \"" + host + "\" 的记录");
                     // 清空输入框
                     hostField.setText("");
                 } else {
-                    // 已有管理员权限，直接删除
-                    hostsFileService.deleteHostnameFromHosts(host, consoleArea);
-                    consoleArea.setText("成功删除主机名 \"" + host + "\" 的记录");
-                    // 清空输入框
-                    consoleArea.setText("");
+                    consoleArea.setText("未找到主机名 \"" + host + "\" 的记录");
                 }
-            } catch (IOException ex) {
+            }, ex -> {
                 consoleArea.setText("删除记录时出错: " + ex.getMessage());
                 JOptionPane.showMessageDialog(this, "无法删除记录: " + ex.getMessage(), "错误", JOptionPane.ERROR_MESSAGE);
-            }
+            });
         }
     }
 
+    /**
+     * 异步操作完成后在界面线程上处理结果
+     *
+     * @param future    异步操作
+     * @param onSuccess 成功时的处理
+     * @param onFailure 失败时的处理，参数为操作抛出的原始异常
+     * @param <T>       结果类型
+     */
+    private <T> void onEdt(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        future.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            if (error == null) {
+                onSuccess.accept(result);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            log.error("后台操作失败：{}", Throwables.getStackTraceAsString(cause));
+            onFailure.accept(cause);
+        }));
+    }
+
 
     private void exit() {
         ImageIcon customIcon = new ImageIcon("image/questionMark.png");
@@ -612,6 +738,14 @@ public class HostsSubscribeApplication extends JFrame {
         if (option == JOptionPane.YES_OPTION) {
             // 停止IP检查定时器
             stopIPCheckTimer();
+            hostsFileService.getWatcher().stop();
+            asyncHostsService.shutdown();
+            if (notifierGroup != null) {
+                notifierGroup.close();
+            }
+            if (notificationOutbox != null) {
+                notificationOutbox.close();
+            }
             // 退出程序
             System.exit(0);
         }
@@ -0,0 +1,165 @@
+package com.xyt.project;
+
+import cn.hutool.core.util.StrUtil;
+import com.xyt.project.config.AppConfiguration;
+import com.xyt.project.email.EmailService;
+import com.xyt.project.model.IPDiff;
+import com.xyt.project.notifier.EmailNotifier;
+import com.xyt.project.notifier.NotifierConfig;
+import com.xyt.project.notifier.NotifierGroup;
+import com.xyt.project.service.HostsFileService;
+import com.xyt.project.service.IPMonitor;
+import com.xyt.project.service.NetworkChangeSource;
+import com.xyt.project.service.NetworkService;
+import com.xyt.project.service.NotificationOutbox;
+import com.xyt.project.service.SubscriptionService;
+import com.xyt.project.util.AppUtil;
+import com.xyt.project.util.StartupMetrics;
+import com.xyt.project.util.Throwables;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 无界面的守护进程（{@code --daemon}），用于服务器和路由器，替代 linux/istoreos/ipv6-monitor.sh 的轮询脚本
+ * 与界面使用相同的检测逻辑：以 localIP.json 为基准，地址变化时通过通知组（webhook / UDP / 邮件发件箱）通知，
+ * 首次运行没有基准时当前地址都视为新增；配置了订阅时定期刷新并直接写入 hosts 文件。
+ * 不引用任何界面类，不加载 AWT / Swing
+ */
+@Slf4j
+public class HostsSubscribeDaemon {
+
+    /**
+     * 启动守护进程的命令行参数
+     */
+    public static final String DAEMON_OPTION = "--daemon";
+
+    /**
+     * 有网络变化事件时的兜底检测间隔（秒）
+     */
+    private static final long EVENT_FALLBACK_CHECK_SECONDS = 300;
+
+    private final String appDir;
+
+    private final NetworkService networkService;
+
+    private final SubscriptionService subscriptionService;
+
+    private final EmailNotifier emailNotifier;
+
+    private final NotificationOutbox notificationOutbox;
+
+    private final NotifierGroup notifierGroup;
+
+    private final ScheduledExecutorService subscriptionScheduler;
+
+    private NetworkChangeSource networkChangeSource;
+
+    private volatile IPMonitor ipMonitor;
+
+    public HostsSubscribeDaemon(String appDir) {
+        this.appDir = appDir;
+        new AppConfiguration(new EmailService());
+        networkService = new NetworkService();
+        subscriptionService = new SubscriptionService(new HostsFileService());
+        emailNotifier = new EmailNotifier(AppConfiguration::getEmailConfig, NotifierConfig.loadTemplates(appDir, "email"));
+        notificationOutbox = new NotificationOutbox(new File(appDir), emailNotifier);
+        notifierGroup = NotifierConfig.createGroup(appDir, notificationOutbox);
+        subscriptionScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "subscription-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        // 即使误用了界面相关的类也不连接显示器
+        System.setProperty("java.awt.headless", "true");
+        HostsSubscribeDaemon daemon = new HostsSubscribeDaemon(AppUtil.getAppDir());
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            daemon.stop();
+            stopped.countDown();
+        }, "daemon-shutdown"));
+        daemon.start();
+        stopped.await();
+    }
+
+    public void start() {
+        log.info("守护进程启动，程序目录：{}", appDir);
+        // 有网络变化事件时由事件触发检测，定时检测只作兜底；否则按配置间隔（默认10秒）检测
+        networkChangeSource = networkService.startChangeSource(() -> {
+            IPMonitor monitor = ipMonitor;
+            if (monitor != null) {
+                monitor.triggerNow();
+            }
+        });
+        long interval = networkChangeSource != null ? EVENT_FALLBACK_CHECK_SECONDS : AppConfiguration.getIpCheckIntervalSeconds();
+        ipMonitor = new IPMonitor(this::notifyIPChange, interval, TimeUnit.SECONDS);
+        ipMonitor.start();
+
+        // 每次刷新都重新读取订阅配置，启动时没有订阅、之后才添加的也会按时刷新
+        long refreshHours = AppConfiguration.getSubscriptionRefreshHours();
+        if (refreshHours > 0) {
+            subscriptionScheduler.scheduleWithFixedDelay(this::refreshSubscriptions, 0, refreshHours, TimeUnit.HOURS);
+        }
+    }
+
+    public void stop() {
+        log.info("守护进程退出");
+        subscriptionScheduler.shutdownNow();
+        if (networkChangeSource != null) {
+            networkChangeSource.stop();
+        }
+        if (ipMonitor != null) {
+            ipMonitor.shutdown();
+        }
+        notifierGroup.close();
+        notificationOutbox.close();
+        emailNotifier.close();
+    }
+
+    private void notifyIPChange() throws IOException, InterruptedException {
+        IPDiff diff = networkService.filterIPList();
+        if (!diff.isEmpty()) {
+            log.info("IP地址变化：新增{}个，变化{}个，移除{}个",
+                    diff.getAdded().size(), diff.getChanged().size(), diff.getRemoved().size());
+            // 写入发件箱失败时抛出异常，不保存地址，下次检测重新通知
+            notifierGroup.notify(getDeviceName(), diff);
+            networkService.saveLocalIP(diff, appDir);
+        }
+        StartupMetrics.mark(StartupMetrics.FIRST_IP_CHECK);
+    }
+
+    private void refreshSubscriptions() {
+        try {
+            if (subscriptionService.refresh(appDir)) {
+                log.info("订阅已更新并写入hosts文件");
+            }
+        } catch (Throwable e) {
+            // 包括运行时异常和 Error：异常逃出任务会让调度线程不再安排下一次刷新
+            log.error("更新订阅失败：{}", Throwables.getStackTraceAsString(e));
+        }
+    }
+
+    /**
+     * 设备名称，未配置时使用主机名
+     */
+    private static String getDeviceName() {
+        String deviceName = AppConfiguration.getEmailConfig().getDeviceName();
+        if (StrUtil.isNotBlank(deviceName)) {
+            return deviceName;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "localhost";
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.xyt.project;
+
+import com.xyt.project.service.HostsHelperServer;
+import com.xyt.project.util.AdminPermissionHelper;
+import com.xyt.project.util.StartupMetrics;
+
+/**
+ * 程序入口，按命令行参数选择运行方式：
+ * <ul>
+ *     <li>{@code --daemon} 无界面的守护进程，用于服务器和路由器</li>
+ *     <li>{@code --helper} 以管理员权限运行的提权助手</li>
+ *     <li>{@code --write-hosts} 以 root 运行的一次性 hosts 写入进程</li>
+ *     <li>无参数时启动图形界面</li>
+ * </ul>
+ * 本类不引用界面类，非图形界面的运行方式不会加载 AWT / Swing
+ */
+public class Launcher {
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "";
+        if (HostsSubscribeDaemon.DAEMON_OPTION.equals(mode)) {
+            StartupMetrics.start(StartupMetrics.FIRST_IP_CHECK);
+            HostsSubscribeDaemon.main(args);
+        } else if (HostsHelperServer.HELPER_OPTION.equals(mode)) {
+            HostsHelperServer.main(args);
+        } else if (AdminPermissionHelper.WRITE_HOSTS_OPTION.equals(mode)) {
+            System.exit(AdminPermissionHelper.writeHosts(args));
+        } else {
+            StartupMetrics.start(StartupMetrics.FIRST_WINDOW, StartupMetrics.FIRST_IP_CHECK);
+            HostsSubscribeApplication.main(args);
+        }
+    }
+}
@@ -6,6 +6,15 @@ import com.xyt.project.util.AppUtil;
 
 public class AppConfiguration {
 
+    /**
+     * IP变更检测间隔（秒），可通过 -Dip.check.interval=30 修改
+     */
+    private static final long DEFAULT_IP_CHECK_INTERVAL_SECONDS = 10;
+
+    /**
+     * 守护进程刷新订阅的间隔（小时），可通过 -Dsubscription.refresh.interval=12 修改，0 表示不刷新
+     */
+    private static final long DEFAULT_SUBSCRIPTION_REFRESH_HOURS = 6;
 
     private static   EmailConfig emailConfig;
 
@@ -25,4 +34,14 @@ public class AppConfiguration {
     }
 
 
+    public static long getIpCheckIntervalSeconds() {
+        return Math.max(1, Long.getLong("ip.check.interval", DEFAULT_IP_CHECK_INTERVAL_SECONDS));
+    }
+
+
+    public static long getSubscriptionRefreshHours() {
+        return Math.max(0, Long.getLong("subscription.refresh.interval", DEFAULT_SUBSCRIPTION_REFRESH_HOURS));
+    }
+
+
 }
@@ -1,22 +1,82 @@
 package com.xyt.project.email;
 
+import lombok.extern.slf4j.Slf4j;
+
 import javax.mail.*;
 import javax.mail.internet.*;
 import java.io.UnsupportedEncodingException;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 邮件发送器
+ * 同一配置复用 Session 和已连接的 Transport：连续发送的多封邮件共用一次 TCP / TLS / 认证握手；
+ * 连接空闲超过 {@link #IDLE_TIMEOUT_MILLIS} 后在后台关闭（发送 QUIT），下次发送时重新建立；否则发送前先用 NOOP 确认连接可用。
+ * 实例线程安全
+ */
+@Slf4j
+public class EmailSender implements AutoCloseable {
+
+    /**
+     * 建立连接的超时时间（毫秒）
+     */
+    private static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * 读写超时时间（毫秒），服务器无响应时不会一直阻塞
+     */
+    private static final int IO_TIMEOUT_MILLIS = 30_000;
+
+    /**
+     * 连接空闲多久后不再复用（毫秒），多数服务器会在几分钟后断开空闲连接
+     */
+    private static final long IDLE_TIMEOUT_MILLIS = 60_000;
+
+    /**
+     * SMTPS 端口，连接建立时即使用 TLS
+     */
+    private static final int SMTPS_PORT = 465;
 
-public class EmailSender {
+    /**
+     * 关闭空闲连接的后台线程，所有实例共用
+     */
+    private static final ScheduledExecutorService IDLE_CLOSER = createIdleCloser();
 
     private String host;
     private int port;
     private String username;
     private String password;
 
+    private Session session;
+
+    private Transport transport;
+
+    /**
+     * 上一次使用连接的时间
+     */
+    private long lastUsed;
+
+    private final long idleTimeoutMillis;
+
+    /**
+     * 到期关闭空闲连接的任务，每次发送后重新安排
+     */
+    private ScheduledFuture<?> idleClose;
+
     public EmailSender(String host, int port, String username, String password) {
+        this(host, port, username, password, IDLE_TIMEOUT_MILLIS);
+    }
+
+    EmailSender(String host, int port, String username, String password, long idleTimeoutMillis) {
         this.host = host;
         this.port = port;
         this.username = username;
         this.password = password;
+        this.idleTimeoutMillis = idleTimeoutMillis;
     }
 
     public EmailSender(EmailConfig emailConfig){
@@ -24,25 +84,36 @@ public class EmailSender {
         this.port = Integer.parseInt(emailConfig.getPort());
         this.username = emailConfig.getEmail();
         this.password = emailConfig.getAuthCode();
+        this.idleTimeoutMillis = IDLE_TIMEOUT_MILLIS;
     }
 
-
-    public void sendSimpleEmail(String fromName,String to, String subject, String content)
-            throws MessagingException {
-        Properties props = new Properties();
-        props.put("mail.smtp.host", host);
-        props.put("mail.smtp.port", port);
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.starttls.enable", "true");
-
-        Session session = Session.getInstance(props, new Authenticator() {
-            @Override
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(username, password);
-            }
+    private static ScheduledExecutorService createIdleCloser() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "email-idle-close");
+            thread.setDaemon(true);
+            return thread;
         });
+        // 每次发送都会取消上一个任务，取消的任务不留在队列里
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
 
-        Message message = new MimeMessage(session);
+    /**
+     * 是否与给定配置的服务器和账号相同，相同时可以继续复用本实例
+     *
+     * @param emailConfig 邮箱配置
+     * @return 是否相同
+     */
+    public boolean matches(EmailConfig emailConfig) {
+        return Objects.equals(host, emailConfig.getSmtpServer())
+                && String.valueOf(port).equals(emailConfig.getPort())
+                && Objects.equals(username, emailConfig.getEmail())
+                && Objects.equals(password, emailConfig.getAuthCode());
+    }
+
+    public synchronized void sendSimpleEmail(String fromName,String to, String subject, String content)
+            throws MessagingException {
+        Message message = new MimeMessage(getSession());
         try {
             message.setFrom(new InternetAddress(username, fromName, "UTF-8"));
         } catch (UnsupportedEncodingException e) {
@@ -51,7 +122,102 @@ public class EmailSender {
         message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(to));
         message.setSubject(subject);
         message.setText(content);
+        message.saveChanges();
+
+        Transport connected = getTransport();
+        try {
+            connected.sendMessage(message, message.getAllRecipients());
+        } catch (MessagingException e) {
+            // 连接状态未知，下次重新建立
+            closeTransport();
+            throw e;
+        }
+        lastUsed = System.currentTimeMillis();
+        scheduleIdleClose();
+    }
+
+    private void scheduleIdleClose() {
+        cancelIdleClose();
+        idleClose = IDLE_CLOSER.schedule(this::closeIdle, idleTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelIdleClose() {
+        if (idleClose != null) {
+            idleClose.cancel(false);
+            idleClose = null;
+        }
+    }
+
+    /**
+     * 连接空闲到期时关闭，正在发送时等发送结束（发送后会重新安排）
+     */
+    private synchronized void closeIdle() {
+        if (transport != null && System.currentTimeMillis() - lastUsed >= idleTimeoutMillis) {
+            log.debug("邮件连接空闲超过{}毫秒，关闭", idleTimeoutMillis);
+            closeTransport();
+        }
+    }
+
+    private Session getSession() {
+        if (session == null) {
+            Properties props = new Properties();
+            props.put("mail.smtp.host", host);
+            props.put("mail.smtp.port", String.valueOf(port));
+            props.put("mail.smtp.auth", "true");
+            props.put("mail.smtp.starttls.enable", "true");
+            props.put("mail.smtp.connectiontimeout", String.valueOf(CONNECT_TIMEOUT_MILLIS));
+            props.put("mail.smtp.timeout", String.valueOf(IO_TIMEOUT_MILLIS));
+            props.put("mail.smtp.writetimeout", String.valueOf(IO_TIMEOUT_MILLIS));
+            if (port == SMTPS_PORT) {
+                props.put("mail.smtp.ssl.enable", "true");
+            }
+
+            session = Session.getInstance(props, new Authenticator() {
+                @Override
+                protected PasswordAuthentication getPasswordAuthentication() {
+                    return new PasswordAuthentication(username, password);
+                }
+            });
+        }
+        return session;
+    }
+
+    /**
+     * 获取可用的连接：空闲过久或 NOOP 失败时重新连接
+     */
+    private Transport getTransport() throws MessagingException {
+        if (transport != null) {
+            boolean idle = System.currentTimeMillis() - lastUsed > idleTimeoutMillis;
+            // SMTPTransport.isConnected() 会发送 NOOP 检查连接
+            if (!idle && transport.isConnected()) {
+                return transport;
+            }
+            closeTransport();
+        }
+        Transport created = getSession().getTransport("smtp");
+        created.connect(host, port, username, password);
+        transport = created;
+        return transport;
+    }
+
+    private void closeTransport() {
+        if (transport == null) {
+            return;
+        }
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("关闭邮件连接失败：{}", e.getMessage());
+        }
+        transport = null;
+    }
 
-        Transport.send(message);
+    /**
+     * 关闭复用的连接
+     */
+    @Override
+    public synchronized void close() {
+        cancelIdleClose();
+        closeTransport();
     }
 }
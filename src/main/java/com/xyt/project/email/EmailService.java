@@ -1,6 +1,6 @@
 package com.xyt.project.email;
 
-import com.google.common.base.Throwables;
+import com.xyt.project.util.Throwables;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
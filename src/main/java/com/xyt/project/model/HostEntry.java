@@ -1,4 +1,175 @@
 package com.xyt.project.model;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * hosts 文件中的一条映射记录
+ * 对应文件中的一行：IP地址 主机名 [别名...] [# 注释]
+ */
 public class HostEntry {
+
+    /**
+     * ip地址
+     */
+    private IPAddress address;
+
+    /**
+     * ip地址的原始文本，只在无法解析或写法与规范格式不同时保存，其余情况由 address 生成
+     */
+    private String ip;
+
+    /**
+     * 规范主机名（行内第一个主机名）
+     */
+    private String hostname;
+
+    /**
+     * 别名
+     */
+    private List<String> aliases;
+
+    /**
+     * 行尾注释（不含 #），没有则为 null
+     */
+    private String comment;
+
+    /**
+     * 在原始文件中的行号（从0开始），新增的记录为 -1
+     */
+    private int lineNumber;
+
+    public HostEntry() {
+        this.aliases = new ArrayList<>();
+        this.lineNumber = -1;
+    }
+
+    public HostEntry(String ip, String hostname, List<String> aliases, String comment, int lineNumber) {
+        setIp(ip);
+        this.hostname = hostname;
+        this.aliases = aliases != null ? aliases : new ArrayList<>();
+        this.comment = comment;
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * 使用已解析的地址构造，多条记录可以共享同一个地址对象
+     */
+    public HostEntry(IPAddress address, String hostname, List<String> aliases, String comment, int lineNumber) {
+        this.address = address;
+        this.hostname = hostname;
+        this.aliases = aliases != null ? aliases : new ArrayList<>();
+        this.comment = comment;
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * 获取该记录包含的全部主机名（规范名 + 别名）
+     *
+     * @return 主机名列表
+     */
+    public List<String> getHostnames() {
+        List<String> names = new ArrayList<>(aliases.size() + 1);
+        names.add(hostname);
+        names.addAll(aliases);
+        return names;
+    }
+
+    /**
+     * 从记录中移除一个主机名，规范名被移除时由第一个别名顶替
+     *
+     * @param name 主机名
+     * @return 移除后记录是否已不包含任何主机名
+     */
+    public boolean removeHostname(String name) {
+        if (hostname != null && hostname.equalsIgnoreCase(name)) {
+            hostname = aliases.isEmpty() ? null : aliases.remove(0);
+        }
+        aliases.removeIf(alias -> alias.equalsIgnoreCase(name));
+        return hostname == null;
+    }
+
+    /**
+     * 转换为 hosts 文件中的一行
+     *
+     * @return 行内容
+     */
+    public String toLine() {
+        StringBuilder line = new StringBuilder();
+        line.append(getIp()).append('\t').append(hostname);
+        for (String alias : aliases) {
+            line.append(' ').append(alias);
+        }
+        if (comment != null) {
+            line.append(" #").append(comment);
+        }
+        return line.toString();
+    }
+
+    /**
+     * 复制记录，与原记录共享地址对象
+     *
+     * @param lineNumber 新记录的行号
+     * @return 新记录
+     */
+    public HostEntry copy(int lineNumber) {
+        HostEntry entry = new HostEntry(address, hostname, new ArrayList<>(aliases), comment, lineNumber);
+        entry.ip = ip;
+        return entry;
+    }
+
+    public String getIp() {
+        return ip != null || address == null ? ip : address.toString();
+    }
+
+    public void setIp(String ip) {
+        this.address = IPAddress.parse(ip);
+        this.ip = address != null && address.toString().equals(ip) ? null : ip;
+    }
+
+    /**
+     * 解析后的地址
+     *
+     * @return 地址，IP文本无法解析时为 null
+     */
+    public IPAddress getAddress() {
+        return address;
+    }
+
+    public String getHostname() {
+        return hostname;
+    }
+
+    public void setHostname(String hostname) {
+        this.hostname = hostname;
+    }
+
+    public List<String> getAliases() {
+        return aliases;
+    }
+
+    public void setAliases(List<String> aliases) {
+        this.aliases = aliases;
+    }
+
+    public String getComment() {
+        return comment;
+    }
+
+    public void setComment(String comment) {
+        this.comment = comment;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public void setLineNumber(int lineNumber) {
+        this.lineNumber = lineNumber;
+    }
+
+    @Override
+    public String toString() {
+        return toLine();
+    }
 }
@@ -0,0 +1,464 @@
+package com.xyt.project.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * 堆外的主机名 -> 地址表
+ * 用于订阅规模（百万级主机名、几乎都指向 0.0.0.0 或 ::）的 hosts 数据：
+ * 主机名以小写 UTF-8 字节追加保存在堆外内存区中，槽位数组也在堆外，采用开放寻址（线性探测），
+ * 地址保存为两个 long，不为每条记录创建 String、List 或 Map.Entry 对象。
+ * <p>
+ * 记录格式：标记(1) 哈希(4) 名称长度(1) 地址(IPv4 为 4 字节，IPv6 为 16 字节) 名称字节(n)。
+ * 删除只标记记录和槽位，扩容时一并压缩；遍历按插入顺序进行（覆盖为不同地址族的地址时记录移到末尾）。
+ * 主机名不区分大小写，最长 255 字节（见 {@link #fits}）；查找复用内部缓冲区，公开方法都加锁，可以在线程间共享
+ */
+public final class HostnameTable {
+
+    private static final long EMPTY = 0L;
+
+    private static final long DELETED = -1L;
+
+    private static final int FLAG_DELETED = 1;
+
+    private static final int FLAG_IPV6 = 2;
+
+    /**
+     * 标记、哈希和名称长度
+     */
+    private static final int HEADER_SIZE = 6;
+
+    /**
+     * 主机名的最大字节数
+     */
+    public static final int MAX_NAME_LENGTH = 255;
+
+    /**
+     * 槽位（含已删除槽位）占用超过一半时扩容
+     */
+    private static final int MAX_LOAD_PERCENT = 50;
+
+    /**
+     * 槽位数组，每个槽位一个 long：高32位为哈希，低32位为记录偏移 + 1
+     */
+    private ByteBuffer slots;
+
+    private int mask;
+
+    /**
+     * 已占用的槽位数（包括已删除的槽位）
+     */
+    private int used;
+
+    private int size;
+
+    private ByteBuffer arena;
+
+    private int arenaEnd;
+
+    private int deletedBytes;
+
+    /**
+     * 当前查找的主机名字节
+     */
+    private final byte[] key = new byte[MAX_NAME_LENGTH];
+
+    private int keyLength;
+
+    private int keyHash;
+
+    public HostnameTable() {
+        this(1024);
+    }
+
+    /**
+     * 复制另一个表，两者之后互不影响
+     */
+    private HostnameTable(HostnameTable source) {
+        this.slots = copyBuffer(source.slots, source.slots.capacity(), source.slots.capacity());
+        this.mask = source.mask;
+        this.used = source.used;
+        this.size = source.size;
+        this.arena = copyBuffer(source.arena, source.arenaEnd, Math.max(4096, source.arenaEnd));
+        this.arenaEnd = source.arenaEnd;
+        this.deletedBytes = source.deletedBytes;
+    }
+
+    /**
+     * @param expectedEntries 预计的记录数
+     */
+    public HostnameTable(int expectedEntries) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedEntries * 100 / MAX_LOAD_PERCENT) - 1) << 1;
+        this.slots = ByteBuffer.allocateDirect(capacity * 8);
+        this.mask = capacity - 1;
+        // 按IPv4地址、平均 32 字节的主机名预估
+        this.arena = ByteBuffer.allocateDirect(Math.max(4096, expectedEntries * (HEADER_SIZE + 4 + 32)));
+    }
+
+    /**
+     * 主机名能否放入表中：转成小写 UTF-8 后不超过 {@link #MAX_NAME_LENGTH} 字节
+     *
+     * @param hostname 主机名
+     * @return 能否放入
+     */
+    public static boolean fits(CharSequence hostname) {
+        int length = hostname.length();
+        if (length > MAX_NAME_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (hostname.charAt(i) >= 128) {
+                return hostname.toString().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8).length <= MAX_NAME_LENGTH;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 复制一份可独立修改的表（整块复制堆外内存）
+     *
+     * @return 副本
+     */
+    public synchronized HostnameTable copy() {
+        return new HostnameTable(this);
+    }
+
+    /**
+     * 设置主机名的地址，已存在时覆盖（保持原来的顺序）
+     *
+     * @param hostname 主机名
+     * @param address  地址
+     * @return 是否为新增的主机名
+     */
+    public synchronized boolean put(CharSequence hostname, IPAddress address) {
+        return put(hostname, address, true);
+    }
+
+    /**
+     * 主机名不存在时才加入
+     *
+     * @param hostname 主机名
+     * @param address  地址
+     * @return 是否加入
+     */
+    public synchronized boolean putIfAbsent(CharSequence hostname, IPAddress address) {
+        return put(hostname, address, false);
+    }
+
+    private boolean put(CharSequence hostname, IPAddress address, boolean replace) {
+        encodeKey(hostname);
+        int index = findSlot();
+        if (index >= 0) {
+            if (replace) {
+                int offset = recordOffset(index);
+                if (isIPv6(offset) == !address.isIPv4()) {
+                    writeAddress(offset, address);
+                } else {
+                    // 地址长度不同，原记录作废，在末尾追加新记录
+                    markDeleted(offset);
+                    slots.putLong(index << 3, ((long) keyHash << 32) | (appendRecord(address) + 1L));
+                }
+            }
+            return false;
+        }
+        if ((used + 1) * 100L > (mask + 1L) * MAX_LOAD_PERCENT) {
+            // 已删除的槽位较多时原容量重建即可
+            rehash((size + 1) * 100L > (mask + 1L) * MAX_LOAD_PERCENT / 2 ? (mask + 1) * 2 : mask + 1);
+            index = findSlot();
+        }
+        int insertAt = -index - 1;
+        int offset = appendRecord(address);
+        if (slots.getLong(insertAt << 3) == EMPTY) {
+            used++;
+        }
+        slots.putLong(insertAt << 3, ((long) keyHash << 32) | (offset + 1L));
+        size++;
+        return true;
+    }
+
+    /**
+     * 查找主机名的地址
+     *
+     * @param hostname 主机名
+     * @return 地址，不存在时返回 null
+     */
+    public synchronized IPAddress get(CharSequence hostname) {
+        encodeKey(hostname);
+        int index = findSlot();
+        return index >= 0 ? readAddress(recordOffset(index)) : null;
+    }
+
+    public synchronized boolean contains(CharSequence hostname) {
+        encodeKey(hostname);
+        return findSlot() >= 0;
+    }
+
+    /**
+     * 删除主机名
+     *
+     * @param hostname 主机名
+     * @return 是否存在
+     */
+    public synchronized boolean remove(CharSequence hostname) {
+        encodeKey(hostname);
+        int index = findSlot();
+        if (index < 0) {
+            return false;
+        }
+        markDeleted(recordOffset(index));
+        slots.putLong(index << 3, DELETED);
+        size--;
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 占用的堆外内存（字节）
+     *
+     * @return 槽位数组与记录区的容量之和
+     */
+    public synchronized long memoryUsage() {
+        return (long) slots.capacity() + arena.capacity();
+    }
+
+    /**
+     * 实际使用的堆外内存（字节）
+     *
+     * @return 槽位数组与已写入记录的大小之和
+     */
+    public synchronized long usedMemory() {
+        return (long) slots.capacity() + arenaEnd;
+    }
+
+    /**
+     * 按插入顺序遍历全部记录（用于写出）
+     *
+     * @param visitor 访问者
+     */
+    public synchronized <E extends Exception> void forEach(Visitor<E> visitor) throws E {
+        byte[] name = new byte[MAX_NAME_LENGTH];
+        int offset = 0;
+        while (offset < arenaEnd) {
+            int length = nameLength(offset);
+            if ((arena.get(offset) & FLAG_DELETED) == 0) {
+                int nameStart = nameStart(offset);
+                for (int i = 0; i < length; i++) {
+                    name[i] = arena.get(nameStart + i);
+                }
+                visitor.visit(new String(name, 0, length, StandardCharsets.UTF_8), readAddress(offset));
+            }
+            offset += recordSize(offset);
+        }
+    }
+
+    /**
+     * 把主机名转成小写 UTF-8 字节写入 key 并计算哈希；纯 ASCII 主机名不创建任何对象
+     */
+    private void encodeKey(CharSequence hostname) {
+        int length = hostname.length();
+        if (length > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("主机名过长: " + hostname);
+        }
+        int i = 0;
+        for (; i < length; i++) {
+            char c = hostname.charAt(i);
+            if (c >= 128) {
+                break;
+            }
+            key[i] = (byte) (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c);
+        }
+        if (i < length) {
+            byte[] bytes = hostname.toString().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_NAME_LENGTH) {
+                throw new IllegalArgumentException("主机名过长: " + hostname);
+            }
+            System.arraycopy(bytes, 0, key, 0, bytes.length);
+            length = bytes.length;
+        }
+        keyLength = length;
+        // FNV-1a，再做一次混合使低位分布均匀
+        int h = 0x811C9DC5;
+        for (int k = 0; k < length; k++) {
+            h = (h ^ (key[k] & 0xFF)) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        keyHash = h;
+    }
+
+    /**
+     * 查找当前 key 的槽位
+     *
+     * @return 找到时返回槽位下标，否则返回 -(可插入的槽位下标 + 1)
+     */
+    private int findSlot() {
+        int index = keyHash & mask;
+        int tombstone = -1;
+        while (true) {
+            long slot = slots.getLong(index << 3);
+            if (slot == EMPTY) {
+                return -(tombstone >= 0 ? tombstone : index) - 1;
+            }
+            if (slot == DELETED) {
+                if (tombstone < 0) {
+                    tombstone = index;
+                }
+            } else if ((int) (slot >>> 32) == keyHash && keyEquals((int) slot - 1)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private boolean keyEquals(int offset) {
+        if (nameLength(offset) != keyLength) {
+            return false;
+        }
+        int nameStart = nameStart(offset);
+        for (int i = 0; i < keyLength; i++) {
+            if (arena.get(nameStart + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int recordOffset(int index) {
+        return (int) slots.getLong(index << 3) - 1;
+    }
+
+    private int nameLength(int offset) {
+        return arena.get(offset + 5) & 0xFF;
+    }
+
+    private boolean isIPv6(int offset) {
+        return (arena.get(offset) & FLAG_IPV6) != 0;
+    }
+
+    private int nameStart(int offset) {
+        return offset + HEADER_SIZE + (isIPv6(offset) ? 16 : 4);
+    }
+
+    private int recordSize(int offset) {
+        return nameStart(offset) - offset + nameLength(offset);
+    }
+
+    private void markDeleted(int offset) {
+        arena.put(offset, (byte) (arena.get(offset) | FLAG_DELETED));
+        deletedBytes += recordSize(offset);
+    }
+
+    private int appendRecord(IPAddress address) {
+        int recordSize = HEADER_SIZE + (address.isIPv4() ? 4 : 16) + keyLength;
+        if (arenaEnd + recordSize > arena.capacity()) {
+            long capacity = Math.max((long) arena.capacity() * 3 / 2, (long) arenaEnd + recordSize);
+            if (capacity > Integer.MAX_VALUE) {
+                throw new IllegalStateException("主机名表超过2GB");
+            }
+            arena = copyArena((int) capacity);
+        }
+        int offset = arenaEnd;
+        arena.putInt(offset + 1, keyHash);
+        arena.put(offset + 5, (byte) keyLength);
+        writeAddress(offset, address);
+        int nameStart = nameStart(offset);
+        for (int i = 0; i < keyLength; i++) {
+            arena.put(nameStart + i, key[i]);
+        }
+        arenaEnd += recordSize;
+        return offset;
+    }
+
+    private ByteBuffer copyArena(int capacity) {
+        return copyBuffer(arena, arenaEnd, capacity);
+    }
+
+    private static ByteBuffer copyBuffer(ByteBuffer buffer, int length, int capacity) {
+        ByteBuffer copy = ByteBuffer.allocateDirect(capacity);
+        ByteBuffer source = buffer.duplicate();
+        source.position(0).limit(length);
+        copy.put(source);
+        return copy;
+    }
+
+    /**
+     * 写入标记和地址，记录中已有地址时地址族必须相同
+     */
+    private void writeAddress(int offset, IPAddress address) {
+        if (address.isIPv4()) {
+            arena.put(offset, (byte) 0);
+            arena.putInt(offset + HEADER_SIZE, address.ipv4());
+        } else {
+            arena.put(offset, (byte) FLAG_IPV6);
+            arena.putLong(offset + HEADER_SIZE, address.hi());
+            arena.putLong(offset + HEADER_SIZE + 8, address.lo());
+        }
+    }
+
+    private IPAddress readAddress(int offset) {
+        if (isIPv6(offset)) {
+            return IPAddress.ofIPv6(arena.getLong(offset + HEADER_SIZE), arena.getLong(offset + HEADER_SIZE + 8));
+        }
+        return IPAddress.ofIPv4(arena.getInt(offset + HEADER_SIZE));
+    }
+
+    /**
+     * 重建槽位数组，同时压缩掉已删除的记录（保持插入顺序）
+     */
+    private void rehash(int capacity) {
+        ByteBuffer oldArena = arena;
+        int oldEnd = arenaEnd;
+        boolean compact = deletedBytes > 0;
+        if (compact) {
+            int live = oldEnd - deletedBytes;
+            arena = ByteBuffer.allocateDirect(Math.max(4096, live + live / 2));
+            arenaEnd = 0;
+        }
+        slots = ByteBuffer.allocateDirect(capacity * 8);
+        mask = capacity - 1;
+        used = 0;
+        int offset = 0;
+        while (offset < oldEnd) {
+            byte flags = oldArena.get(offset);
+            int recordSize = HEADER_SIZE + ((flags & FLAG_IPV6) != 0 ? 16 : 4) + (oldArena.get(offset + 5) & 0xFF);
+            if ((flags & FLAG_DELETED) == 0) {
+                int target = offset;
+                if (compact) {
+                    target = arenaEnd;
+                    for (int i = 0; i < recordSize; i++) {
+                        arena.put(target + i, oldArena.get(offset + i));
+                    }
+                    arenaEnd += recordSize;
+                }
+                int hash = arena.getInt(target + 1);
+                int index = hash & mask;
+                while (slots.getLong(index << 3) != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                slots.putLong(index << 3, ((long) hash << 32) | (target + 1L));
+                used++;
+            }
+            offset += recordSize;
+        }
+        deletedBytes = 0;
+    }
+
+    /**
+     * 记录访问者
+     *
+     * @param <E> 访问时可能抛出的异常
+     */
+    public interface Visitor<E extends Exception> {
+
+        void visit(String hostname, IPAddress address) throws E;
+    }
+}
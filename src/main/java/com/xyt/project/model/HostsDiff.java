@@ -0,0 +1,78 @@
+package com.xyt.project.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 两份 hosts 文件之间的记录差异
+ */
+public class HostsDiff {
+
+    /**
+     * 新增的记录
+     */
+    private final List<HostEntry> added;
+
+    /**
+     * 删除的记录
+     */
+    private final List<HostEntry> removed;
+
+    public HostsDiff(List<HostEntry> added, List<HostEntry> removed) {
+        this.added = added;
+        this.removed = removed;
+    }
+
+    /**
+     * 比较两份 hosts 文件的记录，IP和主机名都相同的记录视为未变化（不区分大小写，忽略注释）
+     *
+     * @param before 变更前，可为 null
+     * @param after  变更后
+     * @return 差异
+     */
+    public static HostsDiff between(HostsFile before, HostsFile after) {
+        Map<String, Deque<HostEntry>> remaining = new HashMap<>();
+        if (before != null) {
+            for (HostEntry entry : before.getEntries()) {
+                remaining.computeIfAbsent(key(entry), k -> new ArrayDeque<>(1)).add(entry);
+            }
+        }
+        List<HostEntry> added = new ArrayList<>();
+        for (HostEntry entry : after.getEntries()) {
+            Deque<HostEntry> same = remaining.get(key(entry));
+            if (same == null || same.poll() == null) {
+                added.add(entry);
+            }
+        }
+        List<HostEntry> removed = new ArrayList<>();
+        for (Deque<HostEntry> entries : remaining.values()) {
+            removed.addAll(entries);
+        }
+        return new HostsDiff(added, removed);
+    }
+
+    private static String key(HostEntry entry) {
+        StringBuilder key = new StringBuilder(entry.getIp());
+        for (String name : entry.getHostnames()) {
+            key.append(' ').append(name);
+        }
+        return key.toString().toLowerCase(Locale.ROOT);
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty();
+    }
+
+    public List<HostEntry> getAdded() {
+        return added;
+    }
+
+    public List<HostEntry> getRemoved() {
+        return removed;
+    }
+}
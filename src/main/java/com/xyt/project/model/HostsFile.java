@@ -0,0 +1,606 @@
+package com.xyt.project.model;
+
+import com.xyt.project.util.HostsLineTokenizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 解析后的 hosts 文件
+ * 保留全部原始行（注释、空行原样写回），并维护 主机名 -> 记录 的索引，
+ * 查找、更新、删除只触及相关行，不再逐行扫描整个文件。
+ * <p>
+ * 订阅的托管区块动辄上百万行，每行都是“规范地址 + 制表符 + 小写主机名”，这样的区块不保存原始行和记录对象，
+ * 而是整体放入堆外的 {@link HostnameTable}：查找、删除直接在表上进行，写出时按表的插入顺序展开，内容与原始行逐字节相同。
+ * 区块中有注释、别名、重复主机名等无法由表还原的行时，仍按原始行保存
+ */
+public class HostsFile {
+
+    /**
+     * 托管区块的开始标记，后接区块名称
+     */
+    public static final String SECTION_BEGIN = "# hosts-subscribe:begin ";
+
+    /**
+     * 托管区块的结束标记，后接区块名称
+     */
+    public static final String SECTION_END = "# hosts-subscribe:end ";
+
+    /**
+     * 原始行，被删除的行置为 null
+     */
+    private final List<String> lines = new ArrayList<>();
+
+    /**
+     * 与 lines 一一对应的记录，注释行和空行为 null
+     */
+    private final List<HostEntry> lineEntries = new ArrayList<>();
+
+    /**
+     * 主机名（小写） -> 记录
+     */
+    private final Map<String, List<HostEntry>> hostnameIndex = new HashMap<>();
+
+    /**
+     * 以主机名表保存的托管区块：区块名称 -> 表；区块的开始、结束标记之间没有原始行，
+     * 内容在第一个同名开始标记之后展开
+     */
+    private final Map<String, HostnameTable> sectionTables = new LinkedHashMap<>();
+
+    private final HostsLineTokenizer tokenizer = new HostsLineTokenizer();
+
+    /**
+     * 从输入流解析 hosts 文件
+     *
+     * @param reader 输入
+     * @return 解析结果
+     * @throws IOException 读取失败时抛出
+     */
+    public static HostsFile parse(BufferedReader reader) throws IOException {
+        HostsFile hostsFile = new HostsFile();
+        String section = null;
+        HostnameTable table = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (table != null) {
+                if (line.equals(SECTION_END + section)) {
+                    hostsFile.sectionTables.put(section, table);
+                    table = null;
+                } else if (hostsFile.addToTable(table, line)) {
+                    continue;
+                } else {
+                    // 区块中有表无法还原的行，整个区块改为原始行
+                    hostsFile.appendTable(table);
+                    table = null;
+                }
+            }
+            hostsFile.appendLine(line);
+            if (line.startsWith(SECTION_BEGIN)) {
+                String name = line.substring(SECTION_BEGIN.length());
+                if (!hostsFile.sectionTables.containsKey(name) && hostsFile.indexOfLine(line) == hostsFile.lines.size() - 1) {
+                    section = name;
+                    table = new HostnameTable();
+                }
+            }
+        }
+        if (table != null) {
+            // 没有结束标记，不是完整的区块
+            hostsFile.appendTable(table);
+        }
+        return hostsFile;
+    }
+
+    /**
+     * 行能由表还原时加入表
+     */
+    private boolean addToTable(HostnameTable table, String line) {
+        HostEntry entry = parseLine(tokenizer, line, -1);
+        return entry != null && fitsTable(entry) && entry.toLine().equals(line)
+                && table.putIfAbsent(entry.getHostname(), entry.getAddress());
+    }
+
+    /**
+     * 记录能否放入主机名表并原样还原：单个小写主机名、规范写法的地址、没有注释
+     */
+    private static boolean fitsTable(HostEntry entry) {
+        IPAddress address = entry.getAddress();
+        String hostname = entry.getHostname();
+        return address != null && entry.getAliases().isEmpty() && entry.getComment() == null
+                && address.toString().equals(entry.getIp())
+                && hostname.equals(key(hostname)) && HostnameTable.fits(hostname);
+    }
+
+    /**
+     * 把表中的记录作为原始行追加
+     */
+    private void appendTable(HostnameTable table) {
+        table.forEach((hostname, address) -> appendLine(address + "\t" + hostname));
+    }
+
+    private int indexOfLine(String line) {
+        for (int i = 0; i < lines.size(); i++) {
+            if (line.equals(lines.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 解析一行 hosts 内容
+     *
+     * @param tokenizer  分词器
+     * @param line       行内容
+     * @param lineNumber 行号
+     * @return 记录，注释行、空行或格式不正确的行返回 null
+     */
+    public static HostEntry parseLine(HostsLineTokenizer tokenizer, String line, int lineNumber) {
+        tokenizer.reset(line);
+        if (!tokenizer.next()) {
+            return null;
+        }
+        String ip = tokenizer.token();
+        // 至少需要IP地址和主机名
+        if (!tokenizer.next()) {
+            return null;
+        }
+        String hostname = tokenizer.token();
+        List<String> aliases = new ArrayList<>(0);
+        while (tokenizer.next()) {
+            aliases.add(tokenizer.token());
+        }
+        return new HostEntry(ip, hostname, aliases, tokenizer.comment(), lineNumber);
+    }
+
+    /**
+     * 复制一份可独立修改的 hosts 文件，行字符串和地址对象与原对象共享
+     *
+     * @return 副本
+     */
+    public HostsFile copy() {
+        HostsFile copy = new HostsFile();
+        for (int i = 0; i < lines.size(); i++) {
+            HostEntry entry = lineEntries.get(i);
+            HostEntry entryCopy = entry != null ? entry.copy(entry.getLineNumber()) : null;
+            copy.lines.add(lines.get(i));
+            copy.lineEntries.add(entryCopy);
+            if (entryCopy != null) {
+                copy.index(entryCopy);
+            }
+        }
+        for (Map.Entry<String, HostnameTable> section : sectionTables.entrySet()) {
+            copy.sectionTables.put(section.getKey(), section.getValue().copy());
+        }
+        return copy;
+    }
+
+    /**
+     * 追加一行原始内容
+     *
+     * @param line 行内容
+     */
+    public void appendLine(String line) {
+        int lineNumber = lines.size();
+        HostEntry entry = parseLine(tokenizer, line, lineNumber);
+        lines.add(line);
+        lineEntries.add(entry);
+        if (entry != null) {
+            index(entry);
+        }
+    }
+
+    /**
+     * 追加一条新记录
+     *
+     * @param ip       IP地址
+     * @param hostname 主机名
+     * @return 新记录
+     */
+    public HostEntry appendEntry(String ip, String hostname) {
+        HostEntry entry = new HostEntry(ip, hostname, null, null, lines.size());
+        lines.add(entry.toLine());
+        lineEntries.add(entry);
+        index(entry);
+        return entry;
+    }
+
+    /**
+     * 按主机名查找记录（不区分大小写）
+     *
+     * @param hostname 主机名
+     * @return 记录列表，不存在时为空列表
+     */
+    public List<HostEntry> find(String hostname) {
+        List<HostEntry> entries = hostnameIndex.get(key(hostname));
+        if (sectionTables.isEmpty()) {
+            return entries == null ? Collections.<HostEntry>emptyList() : Collections.unmodifiableList(entries);
+        }
+        List<HostEntry> result = entries == null ? new ArrayList<>() : new ArrayList<>(entries);
+        for (Map.Entry<String, HostnameTable> section : sectionTables.entrySet()) {
+            IPAddress address = section.getValue().get(hostname);
+            if (address != null) {
+                // 表中的记录没有自己的行，行号取区块开始标记的行号，保持按行排序
+                result.add(new HostEntry(address, key(hostname), null, null, findSection(section.getKey())[0]));
+            }
+        }
+        result.sort(Comparator.comparingInt(HostEntry::getLineNumber));
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * 是否存在该主机名的记录
+     *
+     * @param hostname 主机名
+     * @return 是否存在
+     */
+    public boolean contains(String hostname) {
+        if (hostnameIndex.containsKey(key(hostname))) {
+            return true;
+        }
+        for (HostnameTable table : sectionTables.values()) {
+            if (table.contains(hostname)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 将主机名映射到给定的IP地址，原有映射全部替换
+     *
+     * @param hostname    主机名
+     * @param ipAddresses IP地址列表
+     * @return 原来是否已存在该主机名的记录
+     */
+    public boolean put(String hostname, List<String> ipAddresses) {
+        boolean existed = remove(hostname);
+        for (String ip : ipAddresses) {
+            appendEntry(ip, hostname);
+        }
+        return existed;
+    }
+
+    /**
+     * 删除主机名的全部映射
+     * 一行中仅该主机名被移除，其余别名保留；行内不再有主机名时整行删除
+     *
+     * @param hostname 主机名
+     * @return 是否找到该主机名的记录
+     */
+    public boolean remove(String hostname) {
+        boolean found = false;
+        for (HostnameTable table : sectionTables.values()) {
+            found |= table.remove(hostname);
+        }
+        List<HostEntry> entries = hostnameIndex.remove(key(hostname));
+        if (entries == null) {
+            return found;
+        }
+        for (HostEntry entry : entries) {
+            int lineNumber = entry.getLineNumber();
+            if (entry.removeHostname(hostname)) {
+                lines.set(lineNumber, null);
+                lineEntries.set(lineNumber, null);
+            } else {
+                lines.set(lineNumber, entry.toLine());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 获取托管区块中的记录
+     *
+     * @param name 区块名称
+     * @return 记录列表，区块不存在时为 null
+     */
+    public List<HostEntry> getSection(String name) {
+        int[] bounds = findSection(name);
+        if (bounds == null) {
+            return null;
+        }
+        List<HostEntry> entries = new ArrayList<>();
+        HostnameTable table = sectionTables.get(name);
+        if (table != null) {
+            table.forEach((hostname, address) -> entries.add(new HostEntry(address, hostname, null, null, bounds[0])));
+            return entries;
+        }
+        for (int i = bounds[0] + 1; i < bounds[1]; i++) {
+            HostEntry entry = lineEntries.get(i);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 用给定记录替换托管区块的全部内容，区块不存在时追加到文件末尾
+     *
+     * @param name    区块名称
+     * @param entries 区块中的记录
+     * @return 区块内容是否发生变化
+     */
+    public boolean replaceSection(String name, List<HostEntry> entries) {
+        int[] bounds = findSection(name);
+        if (bounds == null) {
+            lines.add(SECTION_BEGIN + name);
+            lineEntries.add(null);
+            lines.add(SECTION_END + name);
+            lineEntries.add(null);
+            bounds = new int[]{lines.size() - 2, lines.size() - 1};
+        } else if (sameContent(name, bounds, entries)) {
+            return false;
+        }
+
+        // 清除旧内容
+        sectionTables.remove(name);
+        int from = bounds[0] + 1;
+        List<HostEntry> oldEntries = lineEntries.subList(from, bounds[1]);
+        for (HostEntry entry : oldEntries) {
+            if (entry != null) {
+                unindex(entry);
+            }
+        }
+        oldEntries.clear();
+        lines.subList(from, bounds[1]).clear();
+
+        HostnameTable table = toTable(entries);
+        if (table != null) {
+            sectionTables.put(name, table);
+            renumber(from);
+            return true;
+        }
+
+        // 写入新内容，其后各行的行号整体后移
+        List<String> sectionLines = new ArrayList<>(entries.size());
+        for (HostEntry entry : entries) {
+            sectionLines.add(entry.toLine());
+        }
+        lines.addAll(from, sectionLines);
+        List<HostEntry> newEntries = new ArrayList<>(entries.size());
+        for (HostEntry entry : entries) {
+            newEntries.add(entry.copy(-1));
+        }
+        lineEntries.addAll(from, newEntries);
+        renumber(from);
+        for (HostEntry entry : newEntries) {
+            index(entry);
+        }
+        return true;
+    }
+
+    /**
+     * 全部记录都能放入主机名表时返回表，否则返回 null
+     */
+    private static HostnameTable toTable(List<HostEntry> entries) {
+        HostnameTable table = new HostnameTable(entries.size());
+        for (HostEntry entry : entries) {
+            if (!fitsTable(entry) || !table.putIfAbsent(entry.getHostname(), entry.getAddress())) {
+                return null;
+            }
+        }
+        return table;
+    }
+
+    private void renumber(int from) {
+        for (int i = from; i < lineEntries.size(); i++) {
+            HostEntry entry = lineEntries.get(i);
+            if (entry != null) {
+                entry.setLineNumber(i);
+            }
+        }
+    }
+
+    /**
+     * 删除托管区块（包括标记行）
+     *
+     * @param name 区块名称
+     * @return 区块是否存在
+     */
+    public boolean removeSection(String name) {
+        if (findSection(name) == null) {
+            return false;
+        }
+        replaceSection(name, Collections.<HostEntry>emptyList());
+        sectionTables.remove(name);
+        int[] bounds = findSection(name);
+        lines.set(bounds[0], null);
+        lines.set(bounds[1], null);
+        return true;
+    }
+
+    private int[] findSection(String name) {
+        String begin = SECTION_BEGIN + name;
+        String end = SECTION_END + name;
+        int beginLine = -1;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line == null) {
+                continue;
+            }
+            if (beginLine < 0 && line.equals(begin)) {
+                beginLine = i;
+            } else if (beginLine >= 0 && line.equals(end)) {
+                return new int[]{beginLine, i};
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 区块的现有内容是否与给定记录逐行相同
+     */
+    private boolean sameContent(String name, int[] bounds, List<HostEntry> expected) {
+        HostnameTable table = sectionTables.get(name);
+        if (table == null) {
+            return sameLines(bounds[0] + 1, bounds[1], expected);
+        }
+        if (table.size() != expected.size()) {
+            return false;
+        }
+        int[] k = {0};
+        boolean[] same = {true};
+        StringBuilder line = new StringBuilder();
+        table.forEach((hostname, address) -> {
+            if (same[0]) {
+                line.setLength(0);
+                line.append(address).append('\t').append(hostname);
+                same[0] = expected.get(k[0]++).toLine().contentEquals(line);
+            }
+        });
+        return same[0];
+    }
+
+    private boolean sameLines(int from, int to, List<HostEntry> expected) {
+        int k = 0;
+        for (int i = from; i < to; i++) {
+            String line = lines.get(i);
+            if (line == null) {
+                continue;
+            }
+            if (k >= expected.size() || !line.equals(expected.get(k++).toLine())) {
+                return false;
+            }
+        }
+        return k == expected.size();
+    }
+
+    /**
+     * 获取全部有效记录（按行顺序）
+     *
+     * @return 记录列表
+     */
+    public List<HostEntry> getEntries() {
+        List<HostEntry> entries = new ArrayList<>();
+        Set<String> expanded = new HashSet<>();
+        for (int i = 0; i < lines.size(); i++) {
+            HostEntry entry = lineEntries.get(i);
+            if (entry != null) {
+                entries.add(entry);
+                continue;
+            }
+            HostnameTable table = tableAt(i, expanded);
+            if (table != null) {
+                int lineNumber = i;
+                table.forEach((hostname, address) -> entries.add(new HostEntry(address, hostname, null, null, lineNumber)));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 获取全部保留下来的行（按行顺序）
+     *
+     * @return 行列表
+     */
+    public List<String> getLines() {
+        List<String> result = new ArrayList<>(lines.size());
+        forEachLine(line -> result.add(line.toString()));
+        return result;
+    }
+
+    /**
+     * 按行顺序访问全部保留下来的行，以表保存的托管区块逐条展开，不为每行创建字符串
+     *
+     * @param visitor 访问者，传入的行内容只在本次调用内有效
+     * @param <E>     访问者可能抛出的异常
+     * @throws E 访问者抛出
+     */
+    public <E extends Exception> void forEachLine(LineVisitor<E> visitor) throws E {
+        Set<String> expanded = new HashSet<>();
+        StringBuilder tableLine = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line == null) {
+                continue;
+            }
+            visitor.visit(line);
+            HostnameTable table = tableAt(i, expanded);
+            if (table != null) {
+                table.forEach((hostname, address) -> {
+                    tableLine.setLength(0);
+                    tableLine.append(address).append('\t').append(hostname);
+                    visitor.visit(tableLine);
+                });
+            }
+        }
+    }
+
+    /**
+     * 写出 hosts 文件内容
+     *
+     * @param writer        输出
+     * @param lineSeparator 换行符
+     * @throws IOException 写入失败时抛出
+     */
+    public void writeTo(Writer writer, String lineSeparator) throws IOException {
+        forEachLine(line -> {
+            writer.append(line);
+            writer.write(lineSeparator);
+        });
+    }
+
+    /**
+     * 第 i 行是以表保存的托管区块的开始标记时返回该表（每个区块只返回一次）
+     */
+    private HostnameTable tableAt(int i, Set<String> expanded) {
+        if (sectionTables.isEmpty()) {
+            return null;
+        }
+        String line = lines.get(i);
+        if (line == null || !line.startsWith(SECTION_BEGIN)) {
+            return null;
+        }
+        String name = line.substring(SECTION_BEGIN.length());
+        HostnameTable table = sectionTables.get(name);
+        return table != null && expanded.add(name) ? table : null;
+    }
+
+    private void index(HostEntry entry) {
+        for (String name : entry.getHostnames()) {
+            List<HostEntry> entries = hostnameIndex.computeIfAbsent(key(name), k -> new ArrayList<>(1));
+            if (!entries.contains(entry)) {
+                entries.add(entry);
+            }
+        }
+    }
+
+    private void unindex(HostEntry entry) {
+        for (String name : entry.getHostnames()) {
+            String key = key(name);
+            List<HostEntry> entries = hostnameIndex.get(key);
+            if (entries != null) {
+                entries.remove(entry);
+                if (entries.isEmpty()) {
+                    hostnameIndex.remove(key);
+                }
+            }
+        }
+    }
+
+    private static String key(String hostname) {
+        return hostname.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 行访问者
+     *
+     * @param <E> 访问时可能抛出的异常
+     */
+    public interface LineVisitor<E extends Exception> {
+
+        void visit(CharSequence line) throws E;
+    }
+}
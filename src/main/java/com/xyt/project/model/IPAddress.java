@@ -0,0 +1,336 @@
+package com.xyt.project.model;
+
+import com.xyt.project.util.IPAddressParser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 紧凑的IP地址值对象（不可变）
+ * 地址保存为两个 long（IPv4 只用低 32 位），地址族和地址类型为枚举，网卡名称保存为全局复用的编号；
+ * 比 {@link IPInfoDTO} 的四个字符串小得多，快照、差异和 hosts 记录内部都使用它，
+ * 只在读写 JSON 和界面显示时转换为 {@link IPInfoDTO}。
+ * <p>
+ * 相等性只比较地址本身（地址族 + 数值），网卡和地址类型的变化用 {@link #sameInfo(IPAddress)} 判断
+ */
+public final class IPAddress {
+
+    /**
+     * 地址族
+     */
+    public enum Family {
+        IPV4("IPv4"),
+        IPV6("IPv6");
+
+        private final String label;
+
+        Family(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * IPv6 地址类型
+     */
+    public enum Stability {
+        /**
+         * 未区分（IPv4 或 hosts 中的地址）
+         */
+        NONE(""),
+        STABLE("(稳定地址)"),
+        TEMPORARY("(临时地址)");
+
+        private final String label;
+
+        Stability(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        static Stability fromLabel(String label) {
+            for (Stability stability : values()) {
+                if (stability.label.equals(label)) {
+                    return stability;
+                }
+            }
+            return NONE;
+        }
+    }
+
+    /**
+     * 网卡名称 -> 编号，网卡数量很少，编号永不回收
+     */
+    private static final Map<String, Integer> INTERFACE_IDS = new HashMap<>();
+
+    private static final List<String> INTERFACE_NAMES = new ArrayList<>();
+
+    private final long hi;
+
+    private final long lo;
+
+    private final Family family;
+
+    private final Stability stability;
+
+    /**
+     * 网卡编号，没有网卡信息时为 -1
+     */
+    private final int interfaceId;
+
+    private IPAddress(Family family, long hi, long lo, Stability stability, int interfaceId) {
+        this.family = family;
+        this.hi = hi;
+        this.lo = lo;
+        this.stability = stability;
+        this.interfaceId = interfaceId;
+    }
+
+    /**
+     * IPv4 地址
+     *
+     * @param address 地址值，第一段在最高位
+     * @return 地址
+     */
+    public static IPAddress ofIPv4(int address) {
+        return new IPAddress(Family.IPV4, 0, address & 0xFFFFFFFFL, Stability.NONE, -1);
+    }
+
+    /**
+     * IPv6 地址
+     *
+     * @param hi 高 64 位
+     * @param lo 低 64 位
+     * @return 地址
+     */
+    public static IPAddress ofIPv6(long hi, long lo) {
+        return new IPAddress(Family.IPV6, hi, lo, Stability.NONE, -1);
+    }
+
+    /**
+     * 由 {@link java.net.InetAddress#getAddress()} 的字节构造
+     *
+     * @param bytes 4 或 16 字节，网络字节序
+     * @return 地址
+     */
+    public static IPAddress of(byte[] bytes) {
+        if (bytes.length == 4) {
+            return ofIPv4((int) toLong(bytes, 0, 4));
+        }
+        if (bytes.length == 16) {
+            return ofIPv6(toLong(bytes, 0, 8), toLong(bytes, 8, 8));
+        }
+        throw new IllegalArgumentException("地址长度不正确: " + bytes.length);
+    }
+
+    /**
+     * 解析文本形式的IPv4或IPv6地址
+     *
+     * @param text 地址
+     * @return 地址，格式不正确时返回 null
+     */
+    public static IPAddress parse(CharSequence text) {
+        IPAddressParser parser = new IPAddressParser();
+        if (text == null || !parser.parse(text)) {
+            return null;
+        }
+        return parser.isIPv4() ? ofIPv4(parser.ipv4()) : ofIPv6(parser.hi(), parser.lo());
+    }
+
+    /**
+     * 由 JSON / 界面使用的 {@link IPInfoDTO} 转换
+     *
+     * @param dto 地址信息
+     * @return 地址，地址格式不正确时返回 null
+     */
+    public static IPAddress fromDTO(IPInfoDTO dto) {
+        IPAddress address = parse(dto.getIpAddress());
+        if (address == null) {
+            return null;
+        }
+        return address.withInterface(dto.getNetworkName(), Stability.fromLabel(dto.getAddressType()));
+    }
+
+    /**
+     * 附加网卡和地址类型信息
+     *
+     * @param interfaceName 网卡名称
+     * @param stability     地址类型
+     * @return 新的地址对象
+     */
+    public IPAddress withInterface(String interfaceName, Stability stability) {
+        return new IPAddress(family, hi, lo, stability, interfaceId(interfaceName));
+    }
+
+    /**
+     * 转换为 JSON / 界面使用的 {@link IPInfoDTO}
+     *
+     * @return 地址信息
+     */
+    public IPInfoDTO toDTO() {
+        return new IPInfoDTO(getInterfaceName(), family.getLabel(), stability.getLabel(), toString());
+    }
+
+    /**
+     * 网卡和地址类型是否相同
+     *
+     * @param other 另一个地址
+     * @return 是否相同
+     */
+    public boolean sameInfo(IPAddress other) {
+        return interfaceId == other.interfaceId && stability == other.stability;
+    }
+
+    public Family getFamily() {
+        return family;
+    }
+
+    public boolean isIPv4() {
+        return family == Family.IPV4;
+    }
+
+    /**
+     * IPv4 地址值，第一段在最高位
+     *
+     * @return 地址值
+     */
+    public int ipv4() {
+        return (int) lo;
+    }
+
+    public long hi() {
+        return hi;
+    }
+
+    public long lo() {
+        return lo;
+    }
+
+    public Stability getStability() {
+        return stability;
+    }
+
+    /**
+     * 网卡名称
+     *
+     * @return 网卡名称，没有网卡信息时为 null
+     */
+    public String getInterfaceName() {
+        if (interfaceId < 0) {
+            return null;
+        }
+        synchronized (INTERFACE_IDS) {
+            return INTERFACE_NAMES.get(interfaceId);
+        }
+    }
+
+    private static int interfaceId(String name) {
+        if (name == null) {
+            return -1;
+        }
+        synchronized (INTERFACE_IDS) {
+            Integer id = INTERFACE_IDS.get(name);
+            if (id == null) {
+                id = INTERFACE_NAMES.size();
+                INTERFACE_NAMES.add(name);
+                INTERFACE_IDS.put(name, id);
+            }
+            return id;
+        }
+    }
+
+    private static long toLong(byte[] bytes, int offset, int length) {
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IPAddress)) {
+            return false;
+        }
+        IPAddress other = (IPAddress) o;
+        return family == other.family && hi == other.hi && lo == other.lo;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = hi * 31 + lo;
+        return (int) (h ^ (h >>> 32)) * 31 + family.ordinal();
+    }
+
+    /**
+     * 文本形式：IPv4 为点分十进制，IPv6 为 RFC 5952 推荐格式（小写、去掉前导零、压缩最长的连续零分组）
+     *
+     * @return 地址
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(family == Family.IPV4 ? 15 : 39);
+        if (family == Family.IPV4) {
+            appendIPv4(text, (int) lo);
+            return text.toString();
+        }
+        // IPv4 映射地址 ::ffff:a.b.c.d
+        if (hi == 0 && (lo >>> 32) == 0xFFFFL) {
+            text.append("::ffff:");
+            appendIPv4(text, (int) lo);
+            return text.toString();
+        }
+        // 找出最长的连续零分组（至少两组）
+        int bestStart = -1;
+        int bestLength = 1;
+        for (int i = 0; i < 8; ) {
+            if (group(i) != 0) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < 8 && group(i) == 0) {
+                i++;
+            }
+            if (i - start > bestLength) {
+                bestStart = start;
+                bestLength = i - start;
+            }
+        }
+        for (int i = 0; i < 8; i++) {
+            if (i == bestStart) {
+                text.append("::");
+                i += bestLength - 1;
+                continue;
+            }
+            if (text.length() > 0 && text.charAt(text.length() - 1) != ':') {
+                text.append(':');
+            }
+            text.append(Integer.toHexString(group(i)));
+        }
+        return text.toString();
+    }
+
+    private int group(int index) {
+        long half = index < 4 ? hi : lo;
+        return (int) (half >>> (48 - 16 * (index & 3))) & 0xFFFF;
+    }
+
+    private static void appendIPv4(StringBuilder text, int address) {
+        text.append(address >>> 24).append('.')
+                .append((address >>> 16) & 0xFF).append('.')
+                .append((address >>> 8) & 0xFF).append('.')
+                .append(address & 0xFF);
+    }
+}
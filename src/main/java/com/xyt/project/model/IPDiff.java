@@ -0,0 +1,114 @@
+package com.xyt.project.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 两次本机地址快照之间的差异
+ */
+public class IPDiff {
+
+    /**
+     * 新出现的地址
+     */
+    private final List<IPAddress> added;
+
+    /**
+     * 消失的地址
+     */
+    private final List<IPAddress> removed;
+
+    /**
+     * 地址不变但网卡、类型等信息变化的地址（新值）
+     */
+    private final List<IPAddress> changed;
+
+    /**
+     * 当前快照，地址 -> 带网卡信息的地址
+     */
+    private final Map<IPAddress, IPAddress> current;
+
+    /**
+     * 比较时的上一次快照
+     */
+    private final Map<IPAddress, IPAddress> previous;
+
+    public IPDiff(List<IPAddress> added, List<IPAddress> removed, List<IPAddress> changed,
+                  Map<IPAddress, IPAddress> current, Map<IPAddress, IPAddress> previous) {
+        this.added = added;
+        this.removed = removed;
+        this.changed = changed;
+        this.current = current;
+        this.previous = previous;
+    }
+
+    /**
+     * 比较两次快照，按地址数值查找，不做嵌套遍历
+     *
+     * @param before 上一次快照，地址 -> 带网卡信息的地址
+     * @param after  当前地址列表
+     * @return 差异
+     */
+    public static IPDiff between(Map<IPAddress, IPAddress> before, List<IPAddress> after) {
+        Map<IPAddress, IPAddress> current = new LinkedHashMap<>(after.size() * 2);
+        List<IPAddress> added = new ArrayList<>();
+        List<IPAddress> changed = new ArrayList<>();
+        for (IPAddress ip : after) {
+            // 同一地址出现在多个网卡上时只保留第一条
+            if (current.putIfAbsent(ip, ip) != null) {
+                continue;
+            }
+            IPAddress old = before.get(ip);
+            if (old == null) {
+                added.add(ip);
+            } else if (!old.sameInfo(ip)) {
+                changed.add(ip);
+            }
+        }
+        List<IPAddress> removed = new ArrayList<>();
+        for (Map.Entry<IPAddress, IPAddress> entry : before.entrySet()) {
+            if (!current.containsKey(entry.getKey())) {
+                removed.add(entry.getValue());
+            }
+        }
+        return new IPDiff(added, removed, changed, current, new LinkedHashMap<>(before));
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    public List<IPAddress> getAdded() {
+        return added;
+    }
+
+    public List<IPAddress> getRemoved() {
+        return removed;
+    }
+
+    public List<IPAddress> getChanged() {
+        return changed;
+    }
+
+    /**
+     * 新增和变化的地址，即需要通知的当前地址
+     *
+     * @return 地址列表
+     */
+    public List<IPAddress> getAddedAndChanged() {
+        List<IPAddress> result = new ArrayList<>(added.size() + changed.size());
+        result.addAll(added);
+        result.addAll(changed);
+        return result;
+    }
+
+    public Map<IPAddress, IPAddress> getCurrent() {
+        return current;
+    }
+
+    public Map<IPAddress, IPAddress> getPrevious() {
+        return previous;
+    }
+}
@@ -1,5 +1,7 @@
 package com.xyt.project.model;
 
+import com.xyt.project.util.IPAddressParser;
+
 import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
@@ -7,12 +9,10 @@ import java.net.SocketException;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 public class IPv6Address {
 
 
-    private static final Pattern IPV6_PATTERN = Pattern.compile("^([0-9a-fA-F]{1,4}:){7}[0-9a-fA-F]{1,4}$|" + "^::([0-9a-fA-F]{1,4}:){0,6}[0-9a-fA-F]{1,4}$|" + "^[0-9a-fA-F]{1,4}::([0-9a-fA-F]{1,4}:){0,5}[0-9a-fA-F]{1,4}$|" + "^([0-9a-fA-F]{1,4}:){2}:([0-9a-fA-F]{1,4}:){0,4}[0-9a-fA-F]{1,4}$|" + "^([0-9a-fA-F]{1,4}:){3}:([0-9a-fA-F]{1,4}:){0,3}[0-9a-fA-F]{1,4}$|" + "^([0-9a-fA-F]{1,4}:){4}:([0-9a-fA-F]{1,4}:){0,2}[0-9a-fA-F]{1,4}$|" + "^([0-9a-fA-F]{1,4}:){5}:([0-9a-fA-F]{1,4}:){0,1}[0-9a-fA-F]{1,4}$|" + "^([0-9a-fA-F]{1,4}:){6}:[0-9a-fA-F]{1,4}$");
 
 
     public static String getLocalIPv6Addresses() {
@@ -69,7 +69,7 @@ public class IPv6Address {
 
 
     public static boolean isValidIPv6(String ip) {
-        return IPV6_PATTERN.matcher(ip).matches();
+        return IPAddressParser.isValidIPv6(ip);
     }
 
 
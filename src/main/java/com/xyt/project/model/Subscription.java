@@ -0,0 +1,67 @@
+package com.xyt.project.model;
+
+/**
+ * hosts 订阅源
+ */
+public class Subscription {
+
+    /**
+     * 订阅名称，同时作为 hosts 文件中托管区块的名称
+     */
+    private String name;
+
+    /**
+     * 订阅地址
+     */
+    private String url;
+
+    /**
+     * 上次响应的 ETag
+     */
+    private String etag;
+
+    /**
+     * 上次响应的 Last-Modified
+     */
+    private String lastModified;
+
+    public Subscription() {
+    }
+
+    public Subscription(String name, String url) {
+        this.name = name;
+        this.url = url;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(String lastModified) {
+        this.lastModified = lastModified;
+    }
+}
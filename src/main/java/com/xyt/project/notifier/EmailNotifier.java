@@ -0,0 +1,92 @@
+package com.xyt.project.notifier;
+
+import com.xyt.project.email.EmailConfig;
+import com.xyt.project.email.EmailSender;
+import com.xyt.project.model.IPDiff;
+import com.xyt.project.model.IPInfoDTO;
+
+import javax.mail.MessagingException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 邮件通知，使用邮箱订阅设置中的配置发送
+ * 复用同一配置的 {@link EmailSender}，配置变化时关闭旧连接并重新创建；不依赖界面，守护进程模式下同样可用
+ */
+public class EmailNotifier implements Notifier, AutoCloseable {
+
+    private static final String FROM_NAME = "主机IP变更通知";
+
+    private final Supplier<EmailConfig> config;
+
+    private final NotificationTemplates templates;
+
+    /**
+     * 复用连接的发送器，对应最近一次使用的配置
+     */
+    private EmailSender cachedEmailSender;
+
+    /**
+     * @param config    发送时读取当前的邮箱配置
+     * @param templates 主题和正文模板
+     */
+    public EmailNotifier(Supplier<EmailConfig> config, NotificationTemplates templates) {
+        this.config = config;
+        this.templates = templates;
+    }
+
+    public NotificationTemplates getTemplates() {
+        return templates;
+    }
+
+    @Override
+    public void notify(String device, IPDiff diff) throws MessagingException {
+        EmailConfig emailConfig = config.get();
+        send(emailConfig, templates.body(device, diff));
+    }
+
+    /**
+     * 发送地址列表（如测试邮件）
+     *
+     * @param emailConfig 邮箱配置
+     * @param ipList      地址列表
+     * @throws MessagingException 发送失败时抛出
+     */
+    public void send(EmailConfig emailConfig, List<IPInfoDTO> ipList) throws MessagingException {
+        send(emailConfig, templates.body(emailConfig.getDeviceName(), ipList));
+    }
+
+    private void send(EmailConfig emailConfig, String content) throws MessagingException {
+        getCachedEmailSender(emailConfig).sendSimpleEmail(FROM_NAME, emailConfig.getEmail(),
+                templates.subject(emailConfig.getDeviceName()), content);
+    }
+
+    /**
+     * 获取复用的发送器，配置变化时关闭旧连接并重新创建
+     *
+     * @param emailConfig 邮箱配置
+     * @return 发送器
+     */
+    private synchronized EmailSender getCachedEmailSender(EmailConfig emailConfig) {
+        if (cachedEmailSender == null || !cachedEmailSender.matches(emailConfig)) {
+            if (cachedEmailSender != null) {
+                cachedEmailSender.close();
+            }
+            cachedEmailSender = new EmailSender(emailConfig);
+        }
+        return cachedEmailSender;
+    }
+
+    @Override
+    public String name() {
+        return "email";
+    }
+
+    @Override
+    public synchronized void close() {
+        if (cachedEmailSender != null) {
+            cachedEmailSender.close();
+            cachedEmailSender = null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.xyt.project.notifier;
+
+import cn.hutool.json.JSONUtil;
+import com.xyt.project.model.IPAddress;
+import com.xyt.project.model.IPDiff;
+import com.xyt.project.model.IPInfoDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 机器可读的通知内容（JSON），webhook 和 UDP 共用：
+ * <pre>
+ * {"device":"nas","added":[..],"removed":[..],"changed":[..],"current":[..]}
+ * </pre>
+ * 数组元素与 localIP.json 相同（networkName / ipType / addressType / ipAddress）
+ */
+final class NotificationPayload {
+
+    private NotificationPayload() {
+    }
+
+    static byte[] toJson(String device, IPDiff diff) {
+        return JSONUtil.createObj()
+                .set("device", device)
+                .set("added", toDTOList(diff.getAdded()))
+                .set("removed", toDTOList(diff.getRemoved()))
+                .set("changed", toDTOList(diff.getChanged()))
+                .set("current", toDTOList(diff.getCurrent().values()))
+                .toString()
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<IPInfoDTO> toDTOList(Collection<IPAddress> addresses) {
+        List<IPInfoDTO> result = new ArrayList<>(addresses.size());
+        for (IPAddress address : addresses) {
+            result.add(address.toDTO());
+        }
+        return result;
+    }
+}
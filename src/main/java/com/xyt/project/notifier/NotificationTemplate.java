@@ -0,0 +1,149 @@
+package com.xyt.project.notifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预编译的通知模板
+ * 模板只在创建时解析一次，拆成文本片段和变量；渲染时依次追加到调用方提供的 StringBuilder，
+ * 不再为每个地址重新解析占位符。可用的变量：
+ * <ul>
+ *     <li>{@code {device}} 设备名称</li>
+ *     <li>{@code {network}} 网卡名称</li>
+ *     <li>{@code {ipType}} IPv4 / IPv6</li>
+ *     <li>{@code {type}} 地址类型</li>
+ *     <li>{@code {ip}} 地址</li>
+ * </ul>
+ * {@code {{} 和 {@code }}} 分别输出 { 和 }；{@code \t}、{@code \n} 在 properties 文件中按转义字符读取
+ */
+public final class NotificationTemplate {
+
+    private static final String[] VARIABLE_NAMES = {"device", "network", "ipType", "type", "ip"};
+
+    private static final int DEVICE = 0;
+    private static final int NETWORK = 1;
+    private static final int IP_TYPE = 2;
+    private static final int TYPE = 3;
+    private static final int IP = 4;
+
+    private final String pattern;
+
+    /**
+     * 文本片段，literals[i] 在 variables[i] 之前输出，最后一个片段在所有变量之后
+     */
+    private final String[] literals;
+
+    private final int[] variables;
+
+    private NotificationTemplate(String pattern, String[] literals, int[] variables) {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.variables = variables;
+    }
+
+    /**
+     * 编译模板
+     *
+     * @param pattern 模板，如 {@code {ip}\t{device}}
+     * @return 模板
+     * @throws IllegalArgumentException 变量名未知或括号不匹配时抛出
+     */
+    public static NotificationTemplate compile(String pattern) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> variables = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if ((c == '{' || c == '}') && i + 1 < pattern.length() && pattern.charAt(i + 1) == c) {
+                literal.append(c);
+                i += 2;
+                continue;
+            }
+            if (c == '}') {
+                throw new IllegalArgumentException("模板中的 } 没有对应的 {: " + pattern);
+            }
+            if (c != '{') {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            int end = pattern.indexOf('}', i + 1);
+            if (end < 0) {
+                throw new IllegalArgumentException("模板中的 { 没有对应的 }: " + pattern);
+            }
+            literals.add(literal.toString());
+            literal.setLength(0);
+            variables.add(variableIndex(pattern.substring(i + 1, end), pattern));
+            i = end + 1;
+        }
+        literals.add(literal.toString());
+        int[] variableArray = new int[variables.size()];
+        for (int j = 0; j < variableArray.length; j++) {
+            variableArray[j] = variables.get(j);
+        }
+        return new NotificationTemplate(pattern, literals.toArray(new String[0]), variableArray);
+    }
+
+    private static int variableIndex(String name, String pattern) {
+        for (int i = 0; i < VARIABLE_NAMES.length; i++) {
+            if (VARIABLE_NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("模板变量未知: {" + name + "}，模板: " + pattern);
+    }
+
+    /**
+     * 渲染一个地址，追加到 out
+     *
+     * @param out         输出
+     * @param device      设备名称
+     * @param networkName 网卡名称
+     * @param ipType      IPv4 / IPv6
+     * @param addressType 地址类型
+     * @param ip          地址
+     */
+    public void appendTo(StringBuilder out, String device, String networkName, String ipType, String addressType, String ip) {
+        for (int i = 0; i < variables.length; i++) {
+            out.append(literals[i]);
+            switch (variables[i]) {
+                case DEVICE:
+                    out.append(device);
+                    break;
+                case NETWORK:
+                    out.append(networkName);
+                    break;
+                case IP_TYPE:
+                    out.append(ipType);
+                    break;
+                case TYPE:
+                    out.append(addressType);
+                    break;
+                case IP:
+                    out.append(ip);
+                    break;
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+        out.append(literals[variables.length]);
+    }
+
+    /**
+     * 只含设备名称的渲染（如邮件主题），地址相关的变量输出为空
+     *
+     * @param device 设备名称
+     * @return 渲染结果
+     */
+    public String render(String device) {
+        StringBuilder out = new StringBuilder(pattern.length() + 16);
+        appendTo(out, device, "", "", "", "");
+        return out.toString();
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
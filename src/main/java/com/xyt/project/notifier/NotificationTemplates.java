@@ -0,0 +1,143 @@
+package com.xyt.project.notifier;
+
+import com.xyt.project.model.IPAddress;
+import com.xyt.project.model.IPDiff;
+import com.xyt.project.model.IPInfoDTO;
+
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 一种通知方式使用的模板：主题、每个地址一行的正文、已移除地址的行
+ * 正文渲染到每个线程复用的 StringBuilder，一次通知包含上百个地址时也只产生最终的字符串
+ */
+public final class NotificationTemplates {
+
+    /**
+     * 邮件默认格式
+     */
+    public static final NotificationTemplates DEFAULT = new NotificationTemplates(
+            "{device}", "网卡：{network}{type}：{ip} {device}", "已移除 网卡：{network}{type}：{ip} {device}");
+
+    /**
+     * hosts 文件格式，正文可直接粘贴到 hosts 文件
+     */
+    public static final NotificationTemplates HOSTS = new NotificationTemplates(
+            "{device}", "{ip}\t{device}", "# 已移除 {ip}\t{device}");
+
+    private static final String FORMAT_HOSTS = "hosts";
+
+    /**
+     * 复用的缓冲区超过该容量时不再保留，避免一次超大通知长期占用内存
+     */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    private final NotificationTemplate subject;
+
+    private final NotificationTemplate line;
+
+    private final NotificationTemplate removedLine;
+
+    public NotificationTemplates(String subject, String line, String removedLine) {
+        this.subject = NotificationTemplate.compile(subject);
+        this.line = NotificationTemplate.compile(line);
+        this.removedLine = NotificationTemplate.compile(removedLine);
+    }
+
+    /**
+     * 读取 properties 中某种通知方式的模板：
+     * {@code <prefix>.format=hosts} 选择 hosts 格式，{@code <prefix>.subject}、{@code <prefix>.line}、
+     * {@code <prefix>.removed-line} 覆盖其中的单项
+     *
+     * @param props    配置
+     * @param prefix   通知方式，如 email
+     * @param defaults 没有任何相关配置时返回的模板，可以为 null
+     * @return 模板
+     * @throws IllegalArgumentException 模板格式不正确时抛出
+     */
+    public static NotificationTemplates load(Properties props, String prefix, NotificationTemplates defaults) {
+        NotificationTemplates base = FORMAT_HOSTS.equals(props.getProperty(prefix + ".format")) ? HOSTS : defaults;
+        String subject = props.getProperty(prefix + ".subject");
+        String line = props.getProperty(prefix + ".line");
+        String removedLine = props.getProperty(prefix + ".removed-line");
+        if (subject == null && line == null && removedLine == null) {
+            return base;
+        }
+        if (base == null) {
+            base = DEFAULT;
+        }
+        return new NotificationTemplates(
+                subject != null ? subject : base.subject.toString(),
+                line != null ? line : base.line.toString(),
+                removedLine != null ? removedLine : base.removedLine.toString());
+    }
+
+    public String subject(String device) {
+        return subject.render(device);
+    }
+
+    /**
+     * 地址列表的正文，每个地址一行
+     *
+     * @param device    设备名称
+     * @param addresses 地址
+     * @return 正文
+     */
+    public String body(String device, List<IPInfoDTO> addresses) {
+        StringBuilder out = buffer();
+        int lines = 0;
+        for (IPInfoDTO address : addresses) {
+            newLine(out, lines++);
+            line.appendTo(out, device, address.getNetworkName(), address.getIpType(), address.getAddressType(), address.getIpAddress());
+        }
+        return release(out);
+    }
+
+    /**
+     * 地址变化的正文：新增和变化的地址，然后是已移除的地址
+     *
+     * @param device 设备名称
+     * @param diff   地址差异
+     * @return 正文
+     */
+    public String body(String device, IPDiff diff) {
+        StringBuilder out = buffer();
+        int lines = 0;
+        for (IPAddress address : diff.getAddedAndChanged()) {
+            newLine(out, lines++);
+            appendTo(line, out, device, address);
+        }
+        for (IPAddress address : diff.getRemoved()) {
+            newLine(out, lines++);
+            appendTo(removedLine, out, device, address);
+        }
+        return release(out);
+    }
+
+    private static void appendTo(NotificationTemplate template, StringBuilder out, String device, IPAddress address) {
+        template.appendTo(out, device, address.getInterfaceName(), address.getFamily().getLabel(),
+                address.getStability().getLabel(), address.toString());
+    }
+
+    private static void newLine(StringBuilder out, int lines) {
+        if (lines > 0) {
+            out.append('\n');
+        }
+    }
+
+    private static StringBuilder buffer() {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        return out;
+    }
+
+    private static String release(StringBuilder out) {
+        String result = out.toString();
+        if (out.capacity() > MAX_RETAINED_CAPACITY) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+}
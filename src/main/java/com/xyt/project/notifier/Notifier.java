@@ -0,0 +1,27 @@
+package com.xyt.project.notifier;
+
+import com.xyt.project.model.IPDiff;
+
+/**
+ * IP变更通知的发送方式
+ */
+public interface Notifier {
+
+    /**
+     * 发送一条通知
+     *
+     * @param device 设备名称
+     * @param diff   地址差异
+     * @throws Exception 发送失败
+     */
+    void notify(String device, IPDiff diff) throws Exception;
+
+    /**
+     * 名称，用于日志
+     *
+     * @return 名称
+     */
+    default String name() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,159 @@
+package com.xyt.project.notifier;
+
+import com.xyt.project.config.AppConfiguration;
+import com.xyt.project.model.IPDiff;
+import com.xyt.project.service.NotificationOutbox;
+import com.xyt.project.util.Throwables;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Properties;
+
+/**
+ * 读取程序目录 notifier_config.properties 中配置的快速通知方式，例如：
+ * <pre>
+ * webhook.url=http://127.0.0.1:8053/ip-changed
+ * webhook.timeout=2000
+ * udp.target=127.0.0.1:5300
+ * udp.format=hosts
+ * email.subject={device} 地址变更
+ * email.line={ip}\t{device}
+ * </pre>
+ * 未配置的方式不启用；邮件通知仍使用邮箱订阅设置。
+ * 每种方式有自己的发件箱（程序目录下的 notification_outbox_webhook.log 等），加入后立即在后台发送，失败后退避重试。
+ * webhook / UDP 默认发送 JSON，配置了 format 或模板（见 {@link NotificationTemplates#load}）时改为发送渲染后的文本
+ */
+@Slf4j
+public final class NotifierConfig {
+
+    private static final String CONFIG_FILE_NAME = "notifier_config.properties";
+
+    private static final long DEFAULT_WEBHOOK_TIMEOUT_MILLIS = 2_000;
+
+    private static final String WEBHOOK_OUTBOX_FILE_NAME = "notification_outbox_webhook.log";
+
+    private static final String UDP_OUTBOX_FILE_NAME = "notification_outbox_udp.log";
+
+    private NotifierConfig() {
+    }
+
+    /**
+     * 创建IP变更时使用的通知组：配置的快速通知方式，以及开启自动发送时写入的邮件发件箱
+     *
+     * @param configDir   配置目录
+     * @param emailOutbox 邮件发件箱，由其后台线程发送和重试，不占用快速通知的时间
+     * @return 通知组
+     */
+    public static NotifierGroup createGroup(String configDir, Notifier emailOutbox) {
+        NotifierGroup group = new NotifierGroup();
+        addConfiguredSinks(configDir, group);
+        group.add(new Notifier() {
+            @Override
+            public void notify(String device, IPDiff diff) throws Exception {
+                if (AppConfiguration.getEmailConfig().getAutoSend()) {
+                    emailOutbox.notify(device, diff);
+                }
+            }
+
+            @Override
+            public String name() {
+                return emailOutbox.name();
+            }
+        });
+        return group;
+    }
+
+    /**
+     * 把配置的通知方式加入通知组，每种方式包装在各自的发件箱中
+     *
+     * @param configDir 配置目录
+     * @param group     通知组
+     */
+    public static void addConfiguredSinks(String configDir, NotifierGroup group) {
+        Properties props = load(configDir);
+        String webhookUrl = props.getProperty("webhook.url", "").trim();
+        if (!webhookUrl.isEmpty()) {
+            try {
+                long timeout = parseTimeout(props.getProperty("webhook.timeout"), DEFAULT_WEBHOOK_TIMEOUT_MILLIS);
+                Notifier webhook = new WebhookNotifier(new URL(webhookUrl), (int) timeout, textTemplates(props, "webhook"));
+                group.add(new NotificationOutbox(new File(configDir), WEBHOOK_OUTBOX_FILE_NAME, webhook, 0));
+                log.info("启用webhook通知：{}", webhookUrl);
+            } catch (IOException | IllegalArgumentException e) {
+                log.error("webhook通知配置不正确：{}", Throwables.getStackTraceAsString(e));
+            }
+        }
+        String udpTarget = props.getProperty("udp.target", "").trim();
+        if (!udpTarget.isEmpty()) {
+            try {
+                Notifier udp = new UdpNotifier(parseAddress(udpTarget), textTemplates(props, "udp"));
+                group.add(new NotificationOutbox(new File(configDir), UDP_OUTBOX_FILE_NAME, udp, 0));
+                log.info("启用UDP通知：{}", udpTarget);
+            } catch (IOException | IllegalArgumentException e) {
+                log.error("UDP通知配置不正确：{}", Throwables.getStackTraceAsString(e));
+            }
+        }
+    }
+
+    /**
+     * 读取某种通知方式的模板，模板格式不正确时使用默认模板
+     *
+     * @param configDir 配置目录
+     * @param prefix    通知方式，如 email
+     * @return 模板
+     */
+    public static NotificationTemplates loadTemplates(String configDir, String prefix) {
+        try {
+            return NotificationTemplates.load(load(configDir), prefix, NotificationTemplates.DEFAULT);
+        } catch (IllegalArgumentException e) {
+            log.error("通知模板不正确，使用默认模板：{}", e.getMessage());
+            return NotificationTemplates.DEFAULT;
+        }
+    }
+
+    private static Properties load(String configDir) {
+        Properties props = new Properties();
+        File configFile = new File(configDir, CONFIG_FILE_NAME);
+        if (!configFile.exists()) {
+            return props;
+        }
+        try (FileInputStream fis = new FileInputStream(configFile)) {
+            props.load(fis);
+        } catch (IOException e) {
+            log.error("读取通知配置文件失败：{}", Throwables.getStackTraceAsString(e));
+        }
+        return props;
+    }
+
+    /**
+     * 配置了文本格式时返回模板，否则返回 null（发送 JSON）
+     */
+    private static NotificationTemplates textTemplates(Properties props, String prefix) {
+        return NotificationTemplates.load(props, prefix, null);
+    }
+
+    /**
+     * 解析 host:port，IPv6 地址写作 [::1]:5300
+     */
+    static InetSocketAddress parseAddress(String value) {
+        int colon = value.lastIndexOf(':');
+        if (colon <= 0 || colon == value.length() - 1) {
+            throw new IllegalArgumentException("地址格式应为 host:port: " + value);
+        }
+        String host = value.substring(0, colon);
+        if (host.startsWith("[") && host.endsWith("]")) {
+            host = host.substring(1, host.length() - 1);
+        }
+        return new InetSocketAddress(host, Integer.parseInt(value.substring(colon + 1)));
+    }
+
+    private static long parseTimeout(String value, long defaultValue) {
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return Math.max(1, Long.parseLong(value.trim()));
+    }
+}
@@ -0,0 +1,79 @@
+package com.xyt.project.notifier;
+
+import com.xyt.project.model.IPDiff;
+import com.xyt.project.util.Throwables;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 把一次通知交给所有通知方式。
+ * 每种方式都应是发件箱（{@link com.xyt.project.service.NotificationOutbox}）：这里只在调用线程上依次写入各自的日志，
+ * 由各发件箱的后台线程并行发送并在失败后重试，慢的方式（如邮件）不会拖慢 webhook / UDP；
+ * 写入不会被中断，日志中不会留下不完整的记录。
+ * 任一方式未能加入时抛出异常，调用方不应推进地址基准，下次检测时重新通知
+ */
+@Slf4j
+public class NotifierGroup implements Notifier, AutoCloseable {
+
+    private final List<Notifier> notifiers = new CopyOnWriteArrayList<>();
+
+    /**
+     * 添加通知方式
+     *
+     * @param notifier 通知方式
+     * @return 本实例
+     */
+    public NotifierGroup add(Notifier notifier) {
+        notifiers.add(notifier);
+        return this;
+    }
+
+    /**
+     * 交给所有通知方式，某个方式失败不影响其它方式
+     *
+     * @param device 设备名称
+     * @param diff   地址差异
+     * @throws IOException 有通知方式失败，异常信息列出失败的方式，各方式的异常作为 suppressed 附加
+     */
+    @Override
+    public void notify(String device, IPDiff diff) throws IOException {
+        List<String> failedNames = new ArrayList<>();
+        List<Exception> failures = new ArrayList<>();
+        for (Notifier notifier : notifiers) {
+            try {
+                notifier.notify(device, diff);
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                log.error("通知失败（{}）：{}", notifier.name(), Throwables.getStackTraceAsString(e));
+                failedNames.add(notifier.name());
+                failures.add(e);
+            }
+        }
+        if (!failures.isEmpty()) {
+            IOException exception = new IOException("通知失败：" + String.join("，", failedNames));
+            for (Exception failure : failures) {
+                exception.addSuppressed(failure);
+            }
+            throw exception;
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Notifier notifier : notifiers) {
+            if (notifier instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) notifier).close();
+                } catch (Exception e) {
+                    log.debug("关闭通知方式失败：{}", e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.xyt.project.notifier;
+
+import com.xyt.project.model.IPDiff;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * UDP 通知：把 JSON（配置了模板时为渲染后的文本）作为一个数据报发给本机或局域网内的程序（如 DDNS 更新器），
+ * 无连接、无握手，发出即返回
+ */
+public class UdpNotifier implements Notifier, AutoCloseable {
+
+    private final InetSocketAddress target;
+
+    private final DatagramSocket socket;
+
+    /**
+     * 文本模板，为 null 时发送 JSON
+     */
+    private final NotificationTemplates templates;
+
+    /**
+     * @param target    接收方地址
+     * @param templates 文本模板，为 null 时发送 JSON
+     * @throws IOException 创建套接字失败时抛出
+     */
+    public UdpNotifier(InetSocketAddress target, NotificationTemplates templates) throws IOException {
+        this.target = target;
+        this.templates = templates;
+        this.socket = new DatagramSocket();
+    }
+
+    @Override
+    public void notify(String device, IPDiff diff) throws IOException {
+        byte[] body = templates == null
+                ? NotificationPayload.toJson(device, diff)
+                : templates.body(device, diff).getBytes(StandardCharsets.UTF_8);
+        socket.send(new DatagramPacket(body, body.length, target));
+    }
+
+    @Override
+    public String name() {
+        return "udp " + target;
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+    }
+}
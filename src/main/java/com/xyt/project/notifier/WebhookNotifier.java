@@ -0,0 +1,73 @@
+package com.xyt.project.notifier;
+
+import com.xyt.project.model.IPDiff;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HTTP webhook 通知：向配置的地址 POST JSON，配置了模板时 POST 渲染后的文本
+ * 读完响应后连接回到 JDK 的 keep-alive 连接池，连续通知复用同一条 TCP 连接
+ */
+public class WebhookNotifier implements Notifier {
+
+    private final URL url;
+
+    private final int timeoutMillis;
+
+    /**
+     * 文本模板，为 null 时发送 JSON
+     */
+    private final NotificationTemplates templates;
+
+    /**
+     * @param url           webhook 地址
+     * @param timeoutMillis 连接和读取超时（毫秒）
+     * @param templates     文本模板，为 null 时发送 JSON
+     */
+    public WebhookNotifier(URL url, int timeoutMillis, NotificationTemplates templates) {
+        this.url = url;
+        this.timeoutMillis = timeoutMillis;
+        this.templates = templates;
+    }
+
+    @Override
+    public void notify(String device, IPDiff diff) throws IOException {
+        byte[] body = templates == null
+                ? NotificationPayload.toJson(device, diff)
+                : templates.body(device, diff).getBytes(StandardCharsets.UTF_8);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        connection.setRequestProperty("Content-Type", templates == null ? "application/json; charset=UTF-8" : "text/plain; charset=UTF-8");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        int status = connection.getResponseCode();
+        // 读完响应体，连接才能被复用
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (in != null) {
+            try (InputStream response = in) {
+                byte[] buffer = new byte[1024];
+                while (response.read(buffer) >= 0) {
+                    // 丢弃
+                }
+            }
+        }
+        if (status < 200 || status >= 300) {
+            throw new IOException("webhook响应状态码: " + status);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "webhook " + url;
+    }
+}
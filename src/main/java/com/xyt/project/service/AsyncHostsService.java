@@ -0,0 +1,125 @@
+package com.xyt.project.service;
+
+import com.xyt.project.model.IPInfoDTO;
+import com.xyt.project.util.AdminPermissionHelper;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * hosts 文件和网络服务的异步门面
+ * 读写 hosts、枚举网卡、请求管理员权限等阻塞操作都提交到专用的 I/O 线程执行，
+ * 调用方（界面线程）拿到 {@link CompletableFuture} 后自行切回界面线程处理结果；
+ * 本类不依赖 Swing，回调在 I/O 线程上执行
+ */
+public class AsyncHostsService {
+
+    /**
+     * I/O 线程数：写入在 {@link HostsFileService#apply(HostsTransaction)} 内部已串行化，
+     * 两个线程足以让一次耗时的提权写入不阻塞查看、刷新
+     */
+    private static final int IO_THREADS = 2;
+
+    private final HostsFileService hostsFileService;
+
+    private final NetworkService networkService;
+
+    private final ExecutorService executor;
+
+    public AsyncHostsService(HostsFileService hostsFileService, NetworkService networkService) {
+        this.hostsFileService = hostsFileService;
+        this.networkService = networkService;
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(IO_THREADS, IO_THREADS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "hosts-io-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    /**
+     * 获取 hosts 文件的行索引
+     *
+     * @return 行索引
+     */
+    public CompletableFuture<HostsLineIndex> openLineIndex() {
+        return submit(hostsFileService::openLineIndex);
+    }
+
+    /**
+     * 应用批量变更，没有管理员权限时通过提权进程写入
+     *
+     * @param transaction 批量变更
+     * @return 是否改写了文件；提权写入无法得知结果，总是返回 true
+     */
+    public CompletableFuture<Boolean> apply(HostsTransaction transaction) {
+        return submit(() -> {
+            if (!AdminPermissionHelper.isAdmin()) {
+                AdminPermissionHelper.applyWithAdminPrivileges(hostsFileService, transaction);
+                return true;
+            }
+            return hostsFileService.apply(transaction);
+        });
+    }
+
+    /**
+     * 获取本机的网卡地址
+     *
+     * @return 地址列表
+     */
+    public CompletableFuture<List<IPInfoDTO>> getLocalNetworkAddressList() {
+        return submit(networkService::getLocalNetworkAddressList);
+    }
+
+    /**
+     * 在 I/O 线程上执行任意阻塞操作
+     *
+     * @param task 操作
+     * @param <T>  结果类型
+     * @return 结果，操作抛出的异常包装为 {@link CompletionException}
+     */
+    public <T> CompletableFuture<T> submit(IOTask<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * 停止 I/O 线程，已提交的操作继续执行完；最多等待 10 秒，
+     * 避免随后 {@code System.exit} 打断正在提交的 hosts 写入
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 可抛出受检异常的阻塞操作
+     *
+     * @param <T> 结果类型
+     */
+    public interface IOTask<T> {
+
+        T call() throws Exception;
+    }
+}
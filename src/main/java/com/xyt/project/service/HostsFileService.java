@@ -1,13 +1,36 @@
 package com.xyt.project.service;
 
-import com.google.common.base.Throwables;
+import com.xyt.project.model.HostEntry;
+import com.xyt.project.model.HostsFile;
 import lombok.extern.slf4j.Slf4j;
 
-import javax.swing.*;
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Checksum;
 
 /**
  * hosts 文件服务
@@ -15,153 +38,330 @@ import java.util.List;
 @Slf4j
 public class HostsFileService {
 
+    /**
+     * 文件被并发修改时的最大提交次数
+     */
+    private static final int MAX_COMMIT_ATTEMPTS = 3;
 
-    public void updateHostsFile(String hostname, List<String> ipv6Addresses) throws IOException {
-        File hostsFile = getHostsFile();
-        File tempFile = new File(hostsFile.getAbsolutePath() + ".tmp");
+    /**
+     * 锁文件路径 -> 提交锁；同一进程内可能有多个服务实例，FileLock 不能在同一进程内重复获取
+     */
+    private static final ConcurrentMap<Path, ReentrantLock> COMMIT_LOCKS = new ConcurrentHashMap<>();
 
-        BufferedReader reader = null;
-        BufferedWriter writer = null;
+    /**
+     * 指定的 hosts 文件，为 null 时按操作系统取默认路径
+     */
+    private final File hostsFile;
 
-        try {
-            reader = new BufferedReader(new FileReader(hostsFile));
-            writer = new BufferedWriter(new FileWriter(tempFile));
-
-            String line;
-            boolean hostnameFound = false;
-
-            // 读取现有内容并更新
-            while ((line = reader.readLine()) != null) {
-                // 跳过注释和空行
-                if (line.trim().startsWith("#") || line.trim().isEmpty()) {
-                    writer.write(line + System.lineSeparator());
-                    continue;
-                }
+    /**
+     * 解析结果缓存，文件未变化时不重复读取
+     */
+    private final HostsFileWatcher watcher;
 
-                // 检查是否包含目标主机名
-                if (line.contains(hostname)) {
-                    hostnameFound = true;
-                    // 跳过这一行（我们将添加新的映射）
-                    continue;
-                }
+    /**
+     * 写出器，复用堆外缓冲区
+     */
+    private final HostsFileWriter writer = new HostsFileWriter(System.lineSeparator());
 
-                writer.write(line + System.lineSeparator());
-            }
+    /**
+     * 行索引缓存
+     */
+    private HostsLineIndex lineIndex;
 
-            // 添加新的映射
-            for (String ip : ipv6Addresses) {
-                writer.write(ip + "\t" + hostname + System.lineSeparator());
-            }
+    private long lineIndexModified;
 
-            // 如果主机名不存在，我们已经在最后添加了它
-            if (!hostnameFound) {
-                // 添加一个空行分隔
-                writer.write(System.lineSeparator());
-            }
-        } finally {
-            // 确保资源被关闭
-            if (reader != null) {
-                try {
-                    reader.close();
-                } catch (IOException e) {
-                    log.error("close reader ERROR 更新hosts文件：{}", Throwables.getStackTraceAsString(e));
+    private long lineIndexSize;
+
+    public HostsFileService() {
+        this(null);
+    }
+
+    public HostsFileService(File hostsFile) {
+        this.hostsFile = hostsFile;
+        this.watcher = new HostsFileWatcher(this);
+    }
+
+    public HostsFileWatcher getWatcher() {
+        return watcher;
+    }
+
+
+    public void updateHostsFile(String hostname, List<String> ipv6Addresses) throws IOException {
+        apply(new HostsTransaction().upsert(hostname, ipv6Addresses));
+    }
+
+    /**
+     * 删除主机名的全部记录
+     *
+     * @param host 主机名
+     * @return 是否找到该主机名的记录，未找到时不改写文件
+     * @throws IOException 读写失败时抛出
+     */
+    public boolean deleteHostnameFromHosts(String host) throws IOException {
+        return apply(new HostsTransaction().delete(host));
+    }
+
+    /**
+     * 应用批量变更：一次读取、一次写入，一次备份和替换
+     * <p>
+     * 提交过程持有进程内锁和锁文件的排他锁，同时运行的多个本程序实例不会互相覆盖；
+     * 变更在缓存的副本上进行，写好临时文件后、替换前再确认磁盘上的文件仍是读取时的版本，
+     * 若已被其他程序（编辑器、VPN 客户端等）修改，则丢弃临时文件，基于最新内容重放变更
+     *
+     * @param transaction 批量变更
+     * @return 是否改写了文件
+     * @throws IOException 读写失败，或多次重试后文件仍被并发修改时抛出
+     */
+    public boolean apply(HostsTransaction transaction) throws IOException {
+        if (transaction.isEmpty()) {
+            return false;
+        }
+        return commit(current -> {
+            // 在副本上修改，提交完成前其他线程读到的仍是完整的旧版本
+            HostsFile hosts = current.copy();
+            return transaction.applyTo(hosts) ? hosts : null;
+        });
+    }
+
+    /**
+     * 在提交锁内基于最新内容生成新内容并写入，写入期间文件被其他程序修改时重新生成
+     *
+     * @param edit 由当前内容生成新内容，返回 null 表示无需改写；不能修改传入的缓存对象
+     * @return 是否改写了文件
+     */
+    private boolean commit(UnaryOperator<HostsFile> edit) throws IOException {
+        Path target = getHostsFile().toPath().toAbsolutePath();
+        Path lockFile = lockFile(target);
+        ReentrantLock commitLock = COMMIT_LOCKS.computeIfAbsent(lockFile, k -> new ReentrantLock());
+        commitLock.lock();
+        try (FileChannel lockChannel = openLockFile(lockFile)) {
+            // 关闭通道时释放
+            lockChannel.lock();
+            for (int attempt = 1; ; attempt++) {
+                HostsFileWatcher.Snapshot snapshot = watcher.snapshot();
+                HostsFile hosts = edit.apply(snapshot.getHosts());
+                if (hosts == null) {
+                    return false;
                 }
-            }
-            if (writer != null) {
-                try {
-                    writer.close();
-                } catch (IOException e) {
-                    log.error("close writer ERROR 删除hosts文件：{}", Throwables.getStackTraceAsString(e));
+                if (commit(hosts, target, snapshot)) {
+                    return true;
                 }
+                if (attempt >= MAX_COMMIT_ATTEMPTS) {
+                    throw new IOException("hosts文件被其他程序同时修改，重试" + attempt + "次后仍未能写入");
+                }
+                log.warn("hosts文件在写入期间被其他程序修改，基于最新内容重试（第{}次）", attempt);
+                // 修改可能发生在文件时间精度之内，强制重新读取
+                watcher.invalidate();
             }
+        } finally {
+            commitLock.unlock();
         }
+    }
 
-        // 备份原始文件
-        File backupFile = new File(hostsFile.getAbsolutePath() + ".bak");
-        Files.copy(hostsFile.toPath(), backupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * 锁文件与 hosts 文件放在同一目录（如 /etc/.hosts.lock）：提交本来就要在该目录创建临时文件，
+     * 能提交的进程都能创建锁文件；系统目录只有管理员可写，其他用户无法预先放置符号链接或占用锁文件
+     */
+    private static Path lockFile(Path target) {
+        return target.resolveSibling("." + target.getFileName() + ".lock");
+    }
 
-        // 用临时文件替换原始文件
-        Files.move(tempFile.toPath(), hostsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * 打开锁文件：不跟随符号链接，新建时权限与 hosts 文件的默认权限相同
+     */
+    private static FileChannel openLockFile(Path lockFile) throws IOException {
+        Set<OpenOption> options = new HashSet<>(Arrays.asList(
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, LinkOption.NOFOLLOW_LINKS));
+        if (lockFile.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            return FileChannel.open(lockFile, options, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-r--r--")));
+        }
+        return FileChannel.open(lockFile, options);
     }
 
-    public void deleteHostnameFromHosts(String host, JTextArea consoleArea) throws IOException {
-        File hostsFile = getHostsFile();
-        File tempFile = new File(hostsFile.getAbsolutePath() + ".tmp");
+    /**
+     * 写入临时文件，确认原文件未被修改后备份并替换
+     *
+     * @return 是否已替换，原文件已被修改时返回 false
+     */
+    private boolean commit(HostsFile hosts, Path target, HostsFileWatcher.Snapshot snapshot) throws IOException {
+        Path tempFile = createTempFile(target);
+        try {
+            long checksum;
+            synchronized (writer) {
+                writer.write(hosts, tempFile);
+                checksum = writer.checksum();
+            }
+            if (!watcher.isUnchanged(snapshot)) {
+                return false;
+            }
+            backup(target);
+            replace(tempFile, target);
+            watcher.markWritten(hosts, checksum);
+            return true;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
 
-        BufferedReader reader = null;
-        BufferedWriter writer = null;
+    /**
+     * 查找主机名的记录
+     *
+     * @param hostname 主机名
+     * @return 记录列表
+     * @throws IOException 读取失败时抛出
+     */
+    public List<HostEntry> findHostEntries(String hostname) throws IOException {
+        synchronized (watcher) {
+            return new ArrayList<>(watcher.current().find(hostname));
+        }
+    }
 
+    /**
+     * 获取托管区块中的记录
+     *
+     * @param name 区块名称
+     * @return 记录列表，区块不存在时为 null
+     * @throws IOException 读取失败时抛出
+     */
+    public List<HostEntry> getSection(String name) throws IOException {
+        synchronized (watcher) {
+            return watcher.current().getSection(name);
+        }
+    }
+
+    /**
+     * 获取解析后的 hosts 文件，文件未变化时返回缓存
+     * 返回的对象由缓存共享，调用方不应修改，修改请使用 {@link #apply(HostsTransaction)}
+     *
+     * @return 解析结果
+     * @throws IOException 读取失败时抛出
+     */
+    public HostsFile loadHostsFile() throws IOException {
+        return watcher.current();
+    }
+
+    /**
+     * 从磁盘读取并解析 hosts 文件，同时计算读取内容的校验和
+     * 按 UTF-8 读取（与写出时一致，不使用平台默认编码）；内容不是合法的 UTF-8 时
+     * （例如中文 Windows 上以 ANSI/GBK 保存的文件）改用平台默认编码读取，下次写回时转换为 UTF-8
+     *
+     * @param checksum 校验和，读取的原始字节都会计入
+     * @return 解析结果
+     * @throws IOException 读取失败时抛出
+     */
+    HostsFile parseHostsFile(Checksum checksum) throws IOException {
         try {
-            reader = new BufferedReader(new FileReader(hostsFile));
-            writer = new BufferedWriter(new FileWriter(tempFile));
-
-            String line;
-            boolean hostnameFound = false;
-
-            // 读取现有内容并过滤掉指定主机名的记录
-            while ((line = reader.readLine()) != null) {
-                // 跳过注释和空行
-                if (line.trim().startsWith("#") || line.trim().isEmpty()) {
-                    writer.write(line + System.lineSeparator());
-                    continue;
-                }
+            return parseHostsFile(checksum, StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT));
+        } catch (CharacterCodingException e) {
+            log.warn("hosts文件不是UTF-8编码，按系统默认编码{}读取", Charset.defaultCharset());
+            checksum.reset();
+            return parseHostsFile(checksum, Charset.defaultCharset().newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE));
+        }
+    }
 
-                // 检查是否包含目标主机名
-                if (line.contains(host)) {
-                    hostnameFound = true;
-                    // 跳过这一行（删除记录）
-                    continue;
-                }
+    private HostsFile parseHostsFile(Checksum checksum, CharsetDecoder decoder) throws IOException {
+        InputStream in = new CheckedInputStream(new FileInputStream(getHostsFile()), checksum);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, decoder))) {
+            return HostsFile.parse(reader);
+        }
+    }
 
-                writer.write(line + System.lineSeparator());
-            }
+    /**
+     * 用给定内容整体替换 hosts 文件，与 {@link #apply(HostsTransaction)} 使用同一提交锁，不会与其他写入交错
+     * 新内容写入同目录的临时文件并同步到磁盘；原文件通过硬链接保留为 .bak（不复制内容），
+     * 再用原子重命名替换原文件，任何时刻 hosts 文件都是完整的旧内容或新内容
+     *
+     * @param hosts 解析后的 hosts 文件
+     * @throws IOException 写入失败时抛出
+     */
+    public void saveHostsFile(HostsFile hosts) throws IOException {
+        commit(current -> hosts);
+    }
 
-            if (!hostnameFound) {
-                consoleArea.setText("未找到主机名 \"" + host + "\" 的记录");
-            }
-        } finally {
-            // 确保资源被关闭
-            if (reader != null) {
-                try {
-                    reader.close();
-                } catch (IOException e) {
-                    log.error("close reader ERROR 删除hosts文件：{}", Throwables.getStackTraceAsString(e));
-                }
-            }
-            if (writer != null) {
-                try {
-                    writer.close();
-                } catch (IOException e) {
-                    log.error("close writer ERROR 删除hosts文件：{}", Throwables.getStackTraceAsString(e));
-                }
-            }
+    /**
+     * 在目标文件同目录创建唯一的临时文件，多个进程同时写入时互不覆盖；
+     * 沿用原文件的权限（临时文件默认只有所有者可读，直接替换会让其他用户无法解析 hosts）
+     */
+    private static Path createTempFile(Path target) throws IOException {
+        Path tempFile = Files.createTempFile(target.getParent(), target.getFileName() + ".", ".tmp");
+        try {
+            Set<PosixFilePermission> permissions = Files.exists(target)
+                    ? Files.getPosixFilePermissions(target)
+                    : PosixFilePermissions.fromString("rw-r--r--");
+            Files.setPosixFilePermissions(tempFile, permissions);
+        } catch (UnsupportedOperationException e) {
+            // 非 POSIX 文件系统（Windows），继承目录权限即可
         }
+        return tempFile;
+    }
 
-        // 备份原始文件
-        File backupFile = new File(hostsFile.getAbsolutePath() + ".bak");
-        Files.copy(hostsFile.toPath(), backupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * 备份原文件：优先建立硬链接，替换后 .bak 仍指向旧内容；文件系统不支持硬链接时退回到复制
+     */
+    private static void backup(Path target) throws IOException {
+        if (!Files.exists(target)) {
+            return;
+        }
+        Path backupFile = target.resolveSibling(target.getFileName() + ".bak");
+        Files.deleteIfExists(backupFile);
+        try {
+            Files.createLink(backupFile, target);
+        } catch (UnsupportedOperationException | IOException e) {
+            log.debug("无法创建硬链接备份，改为复制：{}", e.toString());
+            Files.copy(target, backupFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
 
-        // 用临时文件替换原始文件
-        Files.move(tempFile.toPath(), hostsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    private static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
-    public String readHostsFile() throws IOException {
-        File hostsFile = getHostsFile();
-        BufferedReader reader = new BufferedReader(new FileReader(hostsFile));
-        StringBuilder content = new StringBuilder();
-        String line;
+    /**
+     * 在行索引上查找包含关键字的行，不解析整个文件
+     *
+     * @param keyword 主机名或IP
+     * @return 匹配的行内容
+     * @throws IOException 读取失败时抛出
+     */
+    public List<String> searchHostsFile(String keyword) throws IOException {
+        HostsLineIndex index = openLineIndex();
+        List<String> lines = new ArrayList<>();
+        for (int lineNumber : index.findLines(keyword)) {
+            lines.add(index.line(lineNumber));
+        }
+        return lines;
+    }
 
-        while ((line = reader.readLine()) != null) {
-            // 过滤掉被注释的行（以 # 开头的行）
-            if (!line.trim().startsWith("#")) {
-                content.append(line).append("\n");
-            }
+    /**
+     * 获取 hosts 文件的行索引，文件未变化时复用上次的索引
+     *
+     * @return 行索引
+     * @throws IOException 读取失败时抛出
+     */
+    public synchronized HostsLineIndex openLineIndex() throws IOException {
+        File file = getHostsFile();
+        long modified = file.lastModified();
+        long size = file.length();
+        if (lineIndex == null || modified != lineIndexModified || size != lineIndexSize) {
+            lineIndex = HostsLineIndex.open(file);
+            lineIndexModified = modified;
+            lineIndexSize = size;
         }
-        reader.close();
-        return content.toString();
+        return lineIndex;
     }
 
     public File getHostsFile() {
+        if (hostsFile != null) {
+            return hostsFile;
+        }
         String os = System.getProperty("os.name").toLowerCase();
         if (os.contains("win")) {
             // Windows系统
@@ -0,0 +1,297 @@
+package com.xyt.project.service;
+
+import com.xyt.project.model.HostsDiff;
+import com.xyt.project.model.HostsFile;
+import com.xyt.project.util.Throwables;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * hosts 文件缓存与监听
+ * 缓存解析后的 hosts 文件，仅当文件的修改时间或大小变化时重新解析；
+ * 通过 WatchService 及时发现其他程序对 hosts 文件的修改，并把差异通知给监听器
+ */
+@Slf4j
+public class HostsFileWatcher {
+
+    /**
+     * 文件修改时间的精度（部分文件系统只精确到秒，FAT 为2秒）
+     */
+    private static final long MODIFIED_TIME_PRECISION_MILLIS = 2000;
+
+    private final HostsFileService hostsFileService;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 缓存的解析结果
+     */
+    private HostsFile cached;
+
+    /**
+     * 缓存对应的文件修改时间
+     */
+    private long cachedModified;
+
+    /**
+     * 缓存对应的文件大小
+     */
+    private long cachedSize;
+
+    /**
+     * 缓存对应的文件内容 CRC32
+     */
+    private long cachedChecksum;
+
+    /**
+     * 缓存建立（读取或写入）的时间
+     */
+    private long cachedAt;
+
+    private volatile WatchService watchService;
+
+    HostsFileWatcher(HostsFileService hostsFileService) {
+        this.hostsFileService = hostsFileService;
+    }
+
+    /**
+     * 获取最新的 hosts 文件，文件未变化时直接返回缓存
+     *
+     * @return 解析结果
+     * @throws IOException 读取失败时抛出
+     */
+    public synchronized HostsFile current() throws IOException {
+        BasicFileAttributes attributes = readAttributes();
+        long modified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+        if (cached != null && modified == cachedModified && size == cachedSize) {
+            return cached;
+        }
+        HostsFile previous = cached;
+        CRC32 checksum = new CRC32();
+        cached = hostsFileService.parseHostsFile(checksum);
+        cachedModified = modified;
+        cachedSize = size;
+        cachedChecksum = checksum.getValue();
+        cachedAt = System.currentTimeMillis();
+        if (previous != null) {
+            notifyListeners(HostsDiff.between(previous, cached));
+        }
+        return cached;
+    }
+
+    /**
+     * 获取最新的 hosts 文件及其版本，供提交时检查文件是否被并发修改
+     *
+     * @return 快照，其中的 hosts 文件由缓存共享，不应修改
+     * @throws IOException 读取失败时抛出
+     */
+    synchronized Snapshot snapshot() throws IOException {
+        HostsFile hosts = current();
+        return new Snapshot(hosts, cachedModified, cachedSize, cachedChecksum, cachedAt);
+    }
+
+    /**
+     * 检查磁盘上的文件是否仍是快照对应的版本
+     * 修改时间或大小不同即视为已修改；修改时间与读取时间过近（文件系统时间精度内可能发生未被察觉的修改）时再比较内容校验和
+     *
+     * @param snapshot 快照
+     * @return 是否未被修改
+     * @throws IOException 读取失败时抛出
+     */
+    boolean isUnchanged(Snapshot snapshot) throws IOException {
+        BasicFileAttributes attributes = readAttributes();
+        if (attributes.lastModifiedTime().toMillis() != snapshot.modified || attributes.size() != snapshot.size) {
+            return false;
+        }
+        if (snapshot.readAt - snapshot.modified > MODIFIED_TIME_PRECISION_MILLIS) {
+            return true;
+        }
+        CRC32 checksum = new CRC32();
+        try (InputStream in = new CheckedInputStream(Files.newInputStream(hostsFileService.getHostsFile().toPath()), checksum)) {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) >= 0) {
+                // 读完为止
+            }
+        }
+        return checksum.getValue() == snapshot.checksum;
+    }
+
+    /**
+     * 本程序写入 hosts 文件后调用，缓存已是最新内容，只需记录新的文件状态
+     *
+     * @param written  写入的内容
+     * @param checksum 写入内容的 CRC32
+     */
+    synchronized void markWritten(HostsFile written, long checksum) {
+        try {
+            BasicFileAttributes attributes = readAttributes();
+            cached = written;
+            cachedModified = attributes.lastModifiedTime().toMillis();
+            cachedSize = attributes.size();
+            cachedChecksum = checksum;
+            cachedAt = System.currentTimeMillis();
+        } catch (IOException e) {
+            invalidate();
+        }
+    }
+
+    /**
+     * 标记缓存已过期，下次访问时重新解析（仍与旧内容比较并通知监听器）
+     */
+    synchronized void invalidate() {
+        cachedSize = -1;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 启动后台监听线程
+     *
+     * @throws IOException 注册监听失败时抛出
+     */
+    public synchronized void start() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        Path hostsPath = hostsFileService.getHostsFile().toPath().toAbsolutePath();
+        WatchService service = FileSystems.getDefault().newWatchService();
+        hostsPath.getParent().register(service,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        watchService = service;
+
+        Thread thread = new Thread(() -> watchLoop(service, hostsPath.getFileName()), "hosts-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 停止后台监听线程
+     */
+    public synchronized void stop() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.error("关闭hosts文件监听失败：{}", Throwables.getStackTraceAsString(e));
+        }
+        watchService = null;
+    }
+
+    private void watchLoop(WatchService service, Path fileName) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean hostsChanged = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                        hostsChanged = true;
+                    }
+                }
+                key.reset();
+                if (hostsChanged) {
+                    refresh();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.info("hosts文件监听已停止");
+        }
+    }
+
+    private void refresh() {
+        try {
+            current();
+        } catch (NoSuchFileException e) {
+            // 其他程序替换文件的中间状态，等待下一次事件
+            log.debug("hosts文件暂不存在：{}", e.getMessage());
+        } catch (IOException e) {
+            log.error("重新加载hosts文件失败：{}", Throwables.getStackTraceAsString(e));
+        }
+    }
+
+    private void notifyListeners(HostsDiff diff) {
+        if (diff.isEmpty()) {
+            return;
+        }
+        for (Listener listener : listeners) {
+            try {
+                listener.onHostsChanged(diff);
+            } catch (RuntimeException e) {
+                log.error("hosts文件变更通知失败：{}", Throwables.getStackTraceAsString(e));
+            }
+        }
+    }
+
+    private BasicFileAttributes readAttributes() throws IOException {
+        return Files.readAttributes(hostsFileService.getHostsFile().toPath(), BasicFileAttributes.class);
+    }
+
+    /**
+     * 某一版本的 hosts 文件
+     */
+    static final class Snapshot {
+
+        private final HostsFile hosts;
+
+        private final long modified;
+
+        private final long size;
+
+        private final long checksum;
+
+        private final long readAt;
+
+        Snapshot(HostsFile hosts, long modified, long size, long checksum, long readAt) {
+            this.hosts = hosts;
+            this.modified = modified;
+            this.size = size;
+            this.checksum = checksum;
+            this.readAt = readAt;
+        }
+
+        HostsFile getHosts() {
+            return hosts;
+        }
+    }
+
+    /**
+     * hosts 文件被外部修改时的监听器
+     */
+    public interface Listener {
+
+        /**
+         * hosts 文件内容发生变化
+         *
+         * @param diff 与上次缓存相比的差异
+         */
+        void onHostsChanged(HostsDiff diff);
+    }
+}
@@ -0,0 +1,120 @@
+package com.xyt.project.service;
+
+import com.xyt.project.model.HostsFile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * hosts 文件写出器
+ * 按 UTF-8 把每一行直接编码到复用的堆外缓冲区，缓冲区满时整块写入 FileChannel，
+ * 不拼接行字符串、不经过平台默认编码的 FileWriter；实例可重复使用，非线程安全
+ */
+public class HostsFileWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final CharBuffer EMPTY = CharBuffer.wrap("");
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private final CharBuffer lineSeparator;
+
+    /**
+     * 上一次写出内容的 CRC32
+     */
+    private final CRC32 checksum = new CRC32();
+
+    /**
+     * @param lineSeparator 换行符
+     */
+    public HostsFileWriter(String lineSeparator) {
+        this.lineSeparator = CharBuffer.wrap(lineSeparator);
+    }
+
+    /**
+     * 写出到文件并同步到磁盘，文件已存在时覆盖
+     *
+     * @param hosts hosts 文件
+     * @param path  目标文件
+     * @throws IOException 写入失败时抛出
+     */
+    public void write(HostsFile hosts, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            write(hosts, channel);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * 写出到通道的当前位置（文件，或提权进程的标准输入）
+     *
+     * @param hosts   hosts 文件
+     * @param channel 目标通道
+     * @throws IOException 写入失败时抛出
+     */
+    public void write(HostsFile hosts, WritableByteChannel channel) throws IOException {
+        buffer.clear();
+        encoder.reset();
+        checksum.reset();
+        hosts.forEachLine(line -> {
+            encode(CharBuffer.wrap(line), false, channel);
+            lineSeparator.rewind();
+            encode(lineSeparator, false, channel);
+        });
+        encode(EMPTY, true, channel);
+        while (encoder.flush(buffer).isOverflow()) {
+            drain(channel);
+        }
+        drain(channel);
+    }
+
+    private void encode(CharBuffer chars, boolean endOfInput, WritableByteChannel channel) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, endOfInput);
+            if (result.isUnderflow()) {
+                return;
+            }
+            if (result.isOverflow()) {
+                drain(channel);
+            } else {
+                // 替换策略下不会出现，保留检查以防编码器行为变化
+                throw new CharacterCodingException();
+            }
+        }
+    }
+
+    /**
+     * 上一次写出内容的校验和
+     *
+     * @return CRC32
+     */
+    public long checksum() {
+        return checksum.getValue();
+    }
+
+    private void drain(WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        checksum.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
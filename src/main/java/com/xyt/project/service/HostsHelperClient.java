@@ -0,0 +1,124 @@
+package com.xyt.project.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * 提权助手的客户端，一条连接上依次发送批量变更
+ */
+public class HostsHelperClient implements Closeable {
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5_000;
+
+    /**
+     * 等待助手写入结果的最长时间（毫秒），包括等待提交锁、读取和改写 hosts 文件
+     */
+    private static final int APPLY_TIMEOUT_MILLIS = 30_000;
+
+    private final Socket socket;
+
+    private final DataInputStream in;
+
+    private final DataOutputStream out;
+
+    private HostsHelperClient(Socket socket) throws IOException {
+        this.socket = socket;
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * 连接本机的提权助手并验证令牌
+     *
+     * @param port  助手监听的端口
+     * @param token 令牌
+     * @return 客户端
+     * @throws IOException 连接失败或令牌被拒绝时抛出
+     */
+    public static HostsHelperClient connect(int port, String token) throws IOException {
+        return connect(port, token, APPLY_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * 连接本机的提权助手并验证令牌
+     *
+     * @param port               助手监听的端口
+     * @param token              令牌
+     * @param applyTimeoutMillis 等待每次写入结果的最长时间（毫秒）
+     * @return 客户端
+     * @throws IOException 连接失败或令牌被拒绝时抛出
+     */
+    static HostsHelperClient connect(int port, String token, int applyTimeoutMillis) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MILLIS);
+            socket.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+            HostsHelperClient client = new HostsHelperClient(socket);
+            client.out.writeUTF(token);
+            client.out.flush();
+            if (client.in.readByte() != HostsHelperProtocol.STATUS_READY) {
+                throw new IOException("提权助手响应不正确");
+            }
+            socket.setSoTimeout(applyTimeoutMillis);
+            return client;
+        } catch (EOFException e) {
+            socket.close();
+            throw new IOException("提权助手拒绝了连接", e);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 由助手应用批量变更
+     *
+     * @param transaction 批量变更
+     * @return 是否改写了文件
+     * @throws IOException 助手写入失败时抛出（连接仍可用）；与助手通信失败或等待结果超时时关闭连接并抛出，
+     *                     调用方可据此改用其他方式写入（变更可重复应用）
+     */
+    public synchronized boolean apply(HostsTransaction transaction) throws IOException {
+        byte status;
+        try {
+            HostsHelperProtocol.writeTransaction(out, transaction);
+            status = in.readByte();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        switch (status) {
+            case HostsHelperProtocol.STATUS_CHANGED:
+                return true;
+            case HostsHelperProtocol.STATUS_UNCHANGED:
+                return false;
+            case HostsHelperProtocol.STATUS_ERROR:
+                throw new IOException("提权助手写入hosts文件失败: " + in.readUTF());
+            default:
+                close();
+                throw new IOException("提权助手响应不正确: " + status);
+        }
+    }
+
+    /**
+     * 连接是否已关闭
+     *
+     * @return 是否已关闭
+     */
+    public boolean isClosed() {
+        return socket.isClosed();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,115 @@
+package com.xyt.project.service;
+
+import com.xyt.project.model.HostEntry;
+import com.xyt.project.model.HostsFile;
+import com.xyt.project.util.HostsLineTokenizer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 提权助手进程的通信格式
+ * 连接建立后客户端先发送令牌（UTF），验证通过后助手回复 {@link #STATUS_READY}；
+ * 之后每个请求是一个批量变更，助手应用后回复一个状态：
+ * <pre>
+ * 请求：int 变更数 { UTF 主机名, boolean 删除, [int 地址数 { UTF 地址 }] }
+ *       int 区块数 { UTF 区块名, boolean 删除, [int 行数 { UTF 行 }] }
+ * 回复：byte 状态, [UTF 错误信息]
+ * </pre>
+ */
+final class HostsHelperProtocol {
+
+    static final byte STATUS_UNCHANGED = 0;
+
+    static final byte STATUS_CHANGED = 1;
+
+    static final byte STATUS_ERROR = 2;
+
+    /**
+     * 令牌验证通过
+     */
+    static final byte STATUS_READY = 3;
+
+    /**
+     * 单个列表的最大长度，防止错误的数据让助手分配过多内存
+     */
+    private static final int MAX_COUNT = 1 << 22;
+
+    private HostsHelperProtocol() {
+    }
+
+    static void writeTransaction(DataOutputStream out, HostsTransaction transaction) throws IOException {
+        out.writeInt(transaction.getMutations().size());
+        for (HostsTransaction.Mutation mutation : transaction.getMutations()) {
+            out.writeUTF(mutation.getHostname());
+            out.writeBoolean(mutation.isDelete());
+            if (!mutation.isDelete()) {
+                out.writeInt(mutation.getIpAddresses().size());
+                for (String ip : mutation.getIpAddresses()) {
+                    out.writeUTF(ip);
+                }
+            }
+        }
+        out.writeInt(transaction.getSections().size());
+        for (Map.Entry<String, List<HostEntry>> section : transaction.getSections().entrySet()) {
+            out.writeUTF(section.getKey());
+            out.writeBoolean(section.getValue() == null);
+            if (section.getValue() != null) {
+                out.writeInt(section.getValue().size());
+                for (HostEntry entry : section.getValue()) {
+                    out.writeUTF(entry.toLine());
+                }
+            }
+        }
+        out.flush();
+    }
+
+    static HostsTransaction readTransaction(DataInputStream in) throws IOException {
+        HostsTransaction transaction = new HostsTransaction();
+        int mutationCount = readCount(in);
+        for (int i = 0; i < mutationCount; i++) {
+            String hostname = in.readUTF();
+            if (in.readBoolean()) {
+                transaction.delete(hostname);
+                continue;
+            }
+            int ipCount = readCount(in);
+            List<String> ipAddresses = new ArrayList<>(ipCount);
+            for (int j = 0; j < ipCount; j++) {
+                ipAddresses.add(in.readUTF());
+            }
+            transaction.upsert(hostname, ipAddresses);
+        }
+        int sectionCount = readCount(in);
+        HostsLineTokenizer tokenizer = new HostsLineTokenizer();
+        for (int i = 0; i < sectionCount; i++) {
+            String name = in.readUTF();
+            if (in.readBoolean()) {
+                transaction.removeSection(name);
+                continue;
+            }
+            int lineCount = readCount(in);
+            List<HostEntry> entries = new ArrayList<>(lineCount);
+            for (int j = 0; j < lineCount; j++) {
+                HostEntry entry = HostsFile.parseLine(tokenizer, in.readUTF(), -1);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+            transaction.replaceSection(name, entries);
+        }
+        return transaction;
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > MAX_COUNT) {
+            throw new IOException("数据格式不正确: " + count);
+        }
+        return count;
+    }
+}
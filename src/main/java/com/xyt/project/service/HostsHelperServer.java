@@ -0,0 +1,180 @@
+package com.xyt.project.service;
+
+import com.xyt.project.util.AppUtil;
+import com.xyt.project.util.Throwables;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+
+/**
+ * 提权助手
+ * 由界面进程以管理员权限启动一次（{@code --helper}），在本机回环地址上监听，
+ * 只接受持有令牌的连接，收到批量变更后通过 {@link HostsFileService#apply(HostsTransaction)} 写入 hosts 文件；
+ * 令牌由界面进程写入程序目录下只有当前用户可读的 {@value #TOKEN_FILE}，
+ * 助手把监听端口写入 {@value #PORT_FILE}。通过验证的客户端断开后助手退出
+ */
+@Slf4j
+public class HostsHelperServer implements Closeable {
+
+    /**
+     * 启动助手进程的命令行参数
+     */
+    public static final String HELPER_OPTION = "--helper";
+
+    /**
+     * 令牌文件名
+     */
+    public static final String TOKEN_FILE = "helper.token";
+
+    /**
+     * 端口文件名
+     */
+    public static final String PORT_FILE = "helper.port";
+
+    /**
+     * 等待客户端连接的最长时间（毫秒），超时后助手退出
+     */
+    private static final int ACCEPT_TIMEOUT_MILLIS = 60_000;
+
+    /**
+     * 等待客户端发送令牌的最长时间（毫秒）
+     */
+    private static final int AUTH_TIMEOUT_MILLIS = 5_000;
+
+    private final HostsFileService hostsFileService;
+
+    private final byte[] token;
+
+    private final ServerSocket serverSocket;
+
+    /**
+     * 在回环地址的随机端口上监听
+     *
+     * @param hostsFileService hosts 文件服务
+     * @param token            令牌
+     * @throws IOException 监听失败时抛出
+     */
+    public HostsHelperServer(HostsFileService hostsFileService, String token) throws IOException {
+        this.hostsFileService = hostsFileService;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+        this.serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        this.serverSocket.setSoTimeout(ACCEPT_TIMEOUT_MILLIS);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * 等待客户端连接并处理请求，直到通过验证的客户端断开或等待连接超时
+     * 令牌不正确的连接直接关闭，不影响继续等待
+     *
+     * @throws IOException 监听失败时抛出
+     */
+    public void serve() throws IOException {
+        while (true) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketTimeoutException e) {
+                log.warn("等待客户端连接超时");
+                return;
+            }
+            try (Socket client = socket) {
+                client.setSoTimeout(AUTH_TIMEOUT_MILLIS);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(client.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(client.getOutputStream()));
+                if (!MessageDigest.isEqual(token, in.readUTF().getBytes(StandardCharsets.UTF_8))) {
+                    log.warn("拒绝令牌不正确的连接：{}", client.getRemoteSocketAddress());
+                    continue;
+                }
+                out.writeByte(HostsHelperProtocol.STATUS_READY);
+                out.flush();
+                client.setSoTimeout(0);
+                handle(in, out);
+                return;
+            } catch (IOException e) {
+                log.warn("客户端连接异常：{}", e.toString());
+            }
+        }
+    }
+
+    private void handle(DataInputStream in, DataOutputStream out) throws IOException {
+        while (true) {
+            HostsTransaction transaction;
+            try {
+                transaction = HostsHelperProtocol.readTransaction(in);
+            } catch (EOFException e) {
+                log.info("客户端已断开");
+                return;
+            }
+            try {
+                boolean changed = hostsFileService.apply(transaction);
+                out.writeByte(changed ? HostsHelperProtocol.STATUS_CHANGED : HostsHelperProtocol.STATUS_UNCHANGED);
+            } catch (IOException | RuntimeException e) {
+                log.error("写入hosts文件失败：{}", Throwables.getStackTraceAsString(e));
+                out.writeByte(HostsHelperProtocol.STATUS_ERROR);
+                out.writeUTF(String.valueOf(e.getMessage()));
+            }
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    /**
+     * 助手进程入口：{@code --helper [--dir 程序目录] [--hosts hosts文件]}
+     *
+     * @param args 命令行参数
+     */
+    public static void main(String[] args) {
+        String dir = AppUtil.getAppDir();
+        File hostsFile = null;
+        for (int i = 0; i < args.length - 1; i++) {
+            if ("--dir".equals(args[i])) {
+                dir = args[++i];
+            } else if ("--hosts".equals(args[i])) {
+                hostsFile = new File(args[++i]);
+            }
+        }
+        Path appDir = Paths.get(dir);
+        Path portFile = appDir.resolve(PORT_FILE);
+        try {
+            String token = new String(Files.readAllBytes(appDir.resolve(TOKEN_FILE)), StandardCharsets.UTF_8).trim();
+            try (HostsHelperServer server = new HostsHelperServer(new HostsFileService(hostsFile), token)) {
+                // 先写临时文件再改名，客户端不会读到写了一半的端口
+                Path tempFile = appDir.resolve(PORT_FILE + ".tmp");
+                Files.write(tempFile, String.valueOf(server.getPort()).getBytes(StandardCharsets.UTF_8));
+                Files.move(tempFile, portFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                log.info("提权助手已启动，端口：{}", server.getPort());
+                server.serve();
+            } finally {
+                Files.deleteIfExists(portFile);
+            }
+        } catch (IOException e) {
+            log.error("提权助手运行失败：{}", Throwables.getStackTraceAsString(e));
+            System.exit(1);
+        }
+        log.info("提权助手已退出");
+    }
+}
@@ -0,0 +1,189 @@
+package com.xyt.project.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * hosts 文件行索引
+ * 文件内容以字节形式读入堆内缓冲区，只记录每行的起始偏移，
+ * 行内容在访问时才解码，避免把几十万行的文件整体转换成字符串。
+ * 不使用内存映射：其他程序截断或原地改写文件时，访问映射会导致 SIGBUS 使 JVM 崩溃
+ */
+public class HostsLineIndex {
+
+    /**
+     * 文件内容
+     */
+    private final ByteBuffer content;
+
+    /**
+     * 每行的起始偏移，最后一个元素为文件末尾
+     */
+    private final int[] lineStarts;
+
+    private final int lineCount;
+
+    private HostsLineIndex(ByteBuffer content, int[] lineStarts, int lineCount) {
+        this.content = content;
+        this.lineStarts = lineStarts;
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * 建立文件的行索引
+     *
+     * @param file hosts 文件
+     * @return 行索引
+     * @throws IOException 读取失败或文件超过2GB时抛出
+     */
+    public static HostsLineIndex open(File file) throws IOException {
+        ByteBuffer content;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("hosts文件过大: " + size);
+            }
+            content = ByteBuffer.allocate((int) size);
+            while (content.hasRemaining() && channel.read(content) >= 0) {
+                // 读满为止，文件在读取期间被截断时只保留已读到的部分
+            }
+            content.flip();
+        }
+        return index(content);
+    }
+
+    private static HostsLineIndex index(ByteBuffer content) {
+        int limit = content.limit();
+        int[] starts = new int[1024];
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i < limit; i++) {
+            if (content.get(i) == '\n') {
+                if (count + 1 >= starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+                starts[count++] = start;
+                start = i + 1;
+            }
+        }
+        // 最后一行没有换行符
+        if (start < limit) {
+            if (count + 1 >= starts.length) {
+                starts = Arrays.copyOf(starts, starts.length + 1);
+            }
+            starts[count++] = start;
+        }
+        starts[count] = limit;
+        return new HostsLineIndex(content, starts, count);
+    }
+
+    /**
+     * 行数
+     *
+     * @return 行数
+     */
+    public int lineCount() {
+        return lineCount;
+    }
+
+    /**
+     * 解码一行内容（不含换行符）
+     *
+     * @param lineNumber 行号，从0开始
+     * @return 行内容
+     */
+    public String line(int lineNumber) {
+        int start = lineStarts[lineNumber];
+        int end = lineEnd(lineNumber);
+        ByteBuffer slice = content.duplicate();
+        slice.limit(end).position(start);
+        return StandardCharsets.UTF_8.decode(slice).toString();
+    }
+
+    /**
+     * 是否为注释行（第一个非空白字符为 #），无需解码
+     *
+     * @param lineNumber 行号
+     * @return 是否为注释行
+     */
+    public boolean isComment(int lineNumber) {
+        int end = lineEnd(lineNumber);
+        for (int i = lineStarts[lineNumber]; i < end; i++) {
+            byte b = content.get(i);
+            if (b != ' ' && b != '\t') {
+                return b == '#';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 查找包含关键字的行（ASCII 不区分大小写），直接在字节上比较
+     *
+     * @param keyword 关键字
+     * @return 匹配的行号
+     */
+    public int[] findLines(String keyword) {
+        return find(keyword, false);
+    }
+
+    /**
+     * 查找包含关键字的非注释行，关键字为空时返回全部非注释行
+     *
+     * @param keyword 关键字（主机名或IP的一部分）
+     * @return 匹配的行号
+     */
+    public int[] findEntryLines(String keyword) {
+        return find(keyword, true);
+    }
+
+    private int[] find(String keyword, boolean skipComments) {
+        byte[] needle = keyword.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        int[] result = new int[16];
+        int count = 0;
+        for (int lineNumber = 0; lineNumber < lineCount; lineNumber++) {
+            if ((!skipComments || !isComment(lineNumber)) && lineContains(lineNumber, needle)) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = lineNumber;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private boolean lineContains(int lineNumber, byte[] needle) {
+        int last = lineEnd(lineNumber) - needle.length;
+        for (int i = lineStarts[lineNumber]; i <= last; i++) {
+            int j = 0;
+            while (j < needle.length && toLower(content.get(i + j)) == needle[j]) {
+                j++;
+            }
+            if (j == needle.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int lineEnd(int lineNumber) {
+        int end = lineStarts[lineNumber + 1];
+        if (end > lineStarts[lineNumber] && content.get(end - 1) == '\n') {
+            end--;
+        }
+        if (end > lineStarts[lineNumber] && content.get(end - 1) == '\r') {
+            end--;
+        }
+        return end;
+    }
+
+    private static byte toLower(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+}
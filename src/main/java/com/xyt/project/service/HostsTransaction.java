@@ -0,0 +1,184 @@
+package com.xyt.project.service;
+
+import com.xyt.project.model.HostEntry;
+import com.xyt.project.model.HostsFile;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * hosts 批量变更
+ * 收集多个主机名的更新和删除，一次读取、一次写入、一次备份完成全部变更；
+ * 同一主机名多次变更时以最后一次为准
+ */
+public class HostsTransaction {
+
+    /**
+     * 主机名（小写） -> 变更，保持加入顺序
+     */
+    private final Map<String, Mutation> mutations = new LinkedHashMap<>();
+
+    /**
+     * 托管区块名称 -> 新内容（null 表示删除区块）
+     */
+    private final Map<String, List<HostEntry>> sections = new LinkedHashMap<>();
+
+    /**
+     * 将主机名映射到给定的IP地址，原有映射全部替换
+     *
+     * @param hostname    主机名
+     * @param ipAddresses IP地址列表
+     * @return 当前事务
+     */
+    public HostsTransaction upsert(String hostname, List<String> ipAddresses) {
+        mutations.put(key(hostname), new Mutation(hostname, new ArrayList<>(ipAddresses)));
+        return this;
+    }
+
+    /**
+     * 删除主机名的全部映射
+     *
+     * @param hostname 主机名
+     * @return 当前事务
+     */
+    public HostsTransaction delete(String hostname) {
+        mutations.put(key(hostname), new Mutation(hostname, null));
+        return this;
+    }
+
+    /**
+     * 用给定记录替换托管区块的全部内容
+     *
+     * @param name    区块名称
+     * @param entries 区块中的记录
+     * @return 当前事务
+     */
+    public HostsTransaction replaceSection(String name, List<HostEntry> entries) {
+        sections.put(name, entries);
+        return this;
+    }
+
+    /**
+     * 删除托管区块
+     *
+     * @param name 区块名称
+     * @return 当前事务
+     */
+    public HostsTransaction removeSection(String name) {
+        sections.put(name, null);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return mutations.isEmpty() && sections.isEmpty();
+    }
+
+    public int size() {
+        return mutations.size() + sections.size();
+    }
+
+    public Collection<Mutation> getMutations() {
+        return Collections.unmodifiableCollection(mutations.values());
+    }
+
+    /**
+     * 托管区块的变更
+     *
+     * @return 区块名称 -> 新内容（null 表示删除区块）
+     */
+    public Map<String, List<HostEntry>> getSections() {
+        return Collections.unmodifiableMap(sections);
+    }
+
+    /**
+     * 将全部变更应用到解析后的 hosts 文件
+     *
+     * @param hosts hosts 文件
+     * @return 是否产生了变更（只包含未命中的删除、内容未变的区块时返回 false）
+     */
+    public boolean applyTo(HostsFile hosts) {
+        boolean changed = false;
+        // 先替换托管区块，单条变更可以覆盖订阅中的同名记录
+        for (Map.Entry<String, List<HostEntry>> section : sections.entrySet()) {
+            if (section.getValue() == null) {
+                changed |= hosts.removeSection(section.getKey());
+            } else {
+                changed |= hosts.replaceSection(section.getKey(), section.getValue());
+            }
+        }
+        for (Mutation mutation : mutations.values()) {
+            if (mutation.isDelete()) {
+                changed |= hosts.remove(mutation.getHostname());
+            } else {
+                hosts.put(mutation.getHostname(), mutation.getIpAddresses());
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 按提权助手的通信格式写出，供以管理员权限运行的写入进程读取
+     *
+     * @param out 输出
+     * @throws IOException 写出失败时抛出
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        HostsHelperProtocol.writeTransaction(new DataOutputStream(out), this);
+    }
+
+    /**
+     * 读取 {@link #writeTo(OutputStream)} 写出的批量变更
+     *
+     * @param in 输入
+     * @return 批量变更
+     * @throws IOException 读取失败或数据格式不正确时抛出
+     */
+    public static HostsTransaction readFrom(InputStream in) throws IOException {
+        return HostsHelperProtocol.readTransaction(new DataInputStream(in));
+    }
+
+    private static String key(String hostname) {
+        return hostname.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 单个主机名的变更
+     */
+    public static class Mutation {
+
+        private final String hostname;
+
+        /**
+         * 新的IP地址列表，删除时为 null
+         */
+        private final List<String> ipAddresses;
+
+        Mutation(String hostname, List<String> ipAddresses) {
+            this.hostname = hostname;
+            this.ipAddresses = ipAddresses;
+        }
+
+        public String getHostname() {
+            return hostname;
+        }
+
+        public List<String> getIpAddresses() {
+            return ipAddresses;
+        }
+
+        public boolean isDelete() {
+            return ipAddresses == null;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.xyt.project.service;
+
+import com.xyt.project.util.Throwables;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IP变更检测调度器
+ * 在单个后台线程上执行检测，上一次检测结束后才安排下一次，检测之间不会重叠；
+ * 检测失败后按指数退避（带随机抖动）延后重试，成功后恢复正常间隔
+ */
+@Slf4j
+public class IPMonitor {
+
+    /**
+     * 退避的最大倍数
+     */
+    private static final int MAX_BACKOFF_MULTIPLIER = 32;
+
+    /**
+     * 抖动比例
+     */
+    private static final double JITTER_RATIO = 0.2;
+
+    /**
+     * 事件触发的去抖延迟，一次网卡变化通常伴随多条地址事件
+     */
+    private static final long DEBOUNCE_MILLIS = 300;
+
+    private final Check check;
+
+    private final long intervalMillis;
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * 连续失败次数，只在调度线程上读写
+     */
+    private int failures;
+
+    private ScheduledFuture<?> next;
+
+    /**
+     * 是否正在检测
+     */
+    private boolean checking;
+
+    /**
+     * 检测期间收到了触发，本次检测结束后立即再检测一次
+     */
+    private boolean pending;
+
+    private volatile boolean running;
+
+    public IPMonitor(Check check, long interval, TimeUnit unit) {
+        this.check = check;
+        this.intervalMillis = unit.toMillis(interval);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ip-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 启动检测，首次检测立即在后台线程上执行，之后按间隔检测
+     * （有网络变化事件时间隔可能长达几分钟，不能让启动后的第一次检测等一个间隔）
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        scheduleNext(0);
+    }
+
+    /**
+     * 尽快执行一次检测（例如收到网络变化事件时）
+     * 短时间内的多次触发合并为一次检测；正在检测时不重复执行，而是在本次检测结束后再检测一次，
+     * 避免检测开始后才发生的变化要等到下一个间隔
+     */
+    public synchronized void triggerNow() {
+        if (!running) {
+            return;
+        }
+        if (checking) {
+            pending = true;
+            return;
+        }
+        if (next == null || next.getDelay(TimeUnit.MILLISECONDS) <= DEBOUNCE_MILLIS) {
+            return;
+        }
+        if (next.cancel(false)) {
+            scheduleNext(DEBOUNCE_MILLIS);
+        } else {
+            // 检测任务已开始但尚未标记 checking
+            pending = true;
+        }
+    }
+
+    /**
+     * 停止检测并等待正在进行的检测结束
+     */
+    public void shutdown() {
+        synchronized (this) {
+            running = false;
+            if (next != null) {
+                next.cancel(false);
+            }
+        }
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void scheduleNext(long delayMillis) {
+        if (running) {
+            next = scheduler.schedule(this::runCheck, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void runCheck() {
+        synchronized (this) {
+            checking = true;
+            // 之前的触发由本次检测覆盖
+            pending = false;
+        }
+        long delay;
+        try {
+            check.run();
+            failures = 0;
+            delay = intervalMillis;
+        } catch (Throwable e) {
+            // 包括 Error：异常逃出任务会让调度线程不再安排下一次检测，检测会无声地停止
+            failures++;
+            delay = backoffDelay(failures);
+            log.error("IP变更检测失败（连续{}次），{}毫秒后重试：{}", failures, delay, Throwables.getStackTraceAsString(e));
+        }
+        synchronized (this) {
+            checking = false;
+            if (pending) {
+                pending = false;
+                delay = Math.min(delay, DEBOUNCE_MILLIS);
+            }
+            scheduleNext(delay);
+        }
+    }
+
+    private long backoffDelay(int failures) {
+        long multiplier = Math.min(MAX_BACKOFF_MULTIPLIER, 1L << Math.min(failures, 30));
+        long base = intervalMillis * multiplier;
+        double jitter = 1 + ThreadLocalRandom.current().nextDouble(-JITTER_RATIO, JITTER_RATIO);
+        return (long) (base * jitter);
+    }
+
+    /**
+     * 一次检测
+     */
+    public interface Check {
+
+        /**
+         * 执行检测，抛出异常表示失败，将延后重试
+         *
+         * @throws Exception 检测失败
+         */
+        void run() throws Exception;
+    }
+}
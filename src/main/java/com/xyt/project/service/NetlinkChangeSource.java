@@ -0,0 +1,139 @@
+package com.xyt.project.service;
+
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLong;
+import com.sun.jna.Structure;
+import com.xyt.project.util.Throwables;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基于 Linux netlink 的地址变化事件源
+ * 订阅内核的 IPv4/IPv6 地址变更广播，地址增删时立即回调；空闲时线程阻塞在 recv 上，几乎不占用CPU
+ */
+@Slf4j
+public class NetlinkChangeSource implements NetworkChangeSource {
+
+    private static final int AF_NETLINK = 16;
+
+    private static final int SOCK_RAW = 3;
+
+    private static final int NETLINK_ROUTE = 0;
+
+    private static final int RTMGRP_IPV4_IFADDR = 0x10;
+
+    private static final int RTMGRP_IPV6_IFADDR = 0x100;
+
+    private static final int SOL_SOCKET = 1;
+
+    private static final int SO_RCVTIMEO = 20;
+
+    /**
+     * recv 超时时间，用于定期检查是否已停止
+     */
+    private static final int RECEIVE_TIMEOUT_SECONDS = 1;
+
+    // Linux的libc接口
+    interface CLibrary extends Library {
+        CLibrary INSTANCE = Native.load("c", CLibrary.class);
+
+        int socket(int domain, int type, int protocol);
+
+        int bind(int fd, SockaddrNl address, int length);
+
+        int setsockopt(int fd, int level, int option, Timeval value, int length);
+
+        NativeLong recv(int fd, byte[] buffer, NativeLong length, int flags);
+
+        int close(int fd);
+    }
+
+    /**
+     * struct sockaddr_nl
+     */
+    public static class SockaddrNl extends Structure {
+        public short nl_family;
+        public short nl_pad;
+        public int nl_pid;
+        public int nl_groups;
+
+        @Override
+        protected List<String> getFieldOrder() {
+            return Arrays.asList("nl_family", "nl_pad", "nl_pid", "nl_groups");
+        }
+    }
+
+    /**
+     * struct timeval
+     */
+    public static class Timeval extends Structure {
+        public NativeLong tv_sec;
+        public NativeLong tv_usec;
+
+        @Override
+        protected List<String> getFieldOrder() {
+            return Arrays.asList("tv_sec", "tv_usec");
+        }
+    }
+
+    private volatile boolean running;
+
+    @Override
+    public synchronized void start(Runnable onChange) throws IOException {
+        CLibrary c = CLibrary.INSTANCE;
+        int socket = c.socket(AF_NETLINK, SOCK_RAW, NETLINK_ROUTE);
+        if (socket < 0) {
+            throw new IOException("创建netlink套接字失败，errno=" + Native.getLastError());
+        }
+        SockaddrNl address = new SockaddrNl();
+        address.nl_family = AF_NETLINK;
+        address.nl_groups = RTMGRP_IPV4_IFADDR | RTMGRP_IPV6_IFADDR;
+        address.write();
+        if (c.bind(socket, address, address.size()) < 0) {
+            c.close(socket);
+            throw new IOException("绑定netlink套接字失败，errno=" + Native.getLastError());
+        }
+        Timeval timeout = new Timeval();
+        timeout.tv_sec = new NativeLong(RECEIVE_TIMEOUT_SECONDS);
+        timeout.tv_usec = new NativeLong(0);
+        timeout.write();
+        c.setsockopt(socket, SOL_SOCKET, SO_RCVTIMEO, timeout, timeout.size());
+
+        running = true;
+        Thread thread = new Thread(() -> receiveLoop(socket, onChange), "netlink-monitor");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void receiveLoop(int socket, Runnable onChange) {
+        byte[] buffer = new byte[8192];
+        NativeLong length = new NativeLong(buffer.length);
+        try {
+            while (running) {
+                // 超时返回 -1，继续等待
+                if (CLibrary.INSTANCE.recv(socket, buffer, length, 0).longValue() > 0) {
+                    onChange.run();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("netlink监听异常：{}", Throwables.getStackTraceAsString(e));
+        } finally {
+            CLibrary.INSTANCE.close(socket);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        // 接收线程最多在一个超时周期后退出并关闭套接字
+        running = false;
+    }
+
+    @Override
+    public String name() {
+        return "netlink";
+    }
+}
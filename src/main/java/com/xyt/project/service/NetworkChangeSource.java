@@ -0,0 +1,28 @@
+package com.xyt.project.service;
+
+/**
+ * 网络地址变化事件源
+ * 地址变化时回调，调用方据此立即检测IP变更，而不必依赖短间隔轮询
+ */
+public interface NetworkChangeSource {
+
+    /**
+     * 开始监听
+     *
+     * @param onChange 地址可能发生变化时的回调，在事件源的后台线程上执行
+     * @throws Exception 无法监听时抛出
+     */
+    void start(Runnable onChange) throws Exception;
+
+    /**
+     * 停止监听
+     */
+    void stop();
+
+    /**
+     * 事件源名称，用于日志
+     *
+     * @return 名称
+     */
+    String name();
+}
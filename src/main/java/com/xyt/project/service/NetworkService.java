@@ -1,12 +1,14 @@
 package com.xyt.project.service;
 
-import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONUtil;
-import com.google.common.base.Throwables;
+import com.sun.jna.Platform;
+import com.xyt.project.model.IPAddress;
+import com.xyt.project.model.IPDiff;
 import com.xyt.project.model.IPInfoDTO;
 import com.xyt.project.util.AppUtil;
+import com.xyt.project.util.Throwables;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.BufferedWriter;
@@ -18,7 +20,9 @@ import java.net.NetworkInterface;
 import java.net.SocketException;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 网络服务
@@ -28,6 +32,13 @@ public class NetworkService {
 
     private static final String LOCAL_IP_FILE_NAME = "localIP.json";
 
+    private static final File PROC_IF_INET6 = new File("/proc/net/if_inet6");
+
+    /**
+     * 上一次确认的本机地址，地址 -> 带网卡信息的地址，首次比较时从 localIP.json 加载
+     */
+    private Map<IPAddress, IPAddress> snapshot;
+
     /**
      * 获取本机网络地址（增强版）
      * 包含IPv4和IPv6
@@ -36,7 +47,21 @@ public class NetworkService {
      * @return 网卡名称%IP地址
      */
     public List<IPInfoDTO> getLocalNetworkAddressList() {
-        List<IPInfoDTO> addressList = new ArrayList<>();
+        List<IPAddress> addresses = getLocalAddresses();
+        List<IPInfoDTO> addressList = new ArrayList<>(addresses.size());
+        for (IPAddress address : addresses) {
+            addressList.add(address.toDTO());
+        }
+        return addressList;
+    }
+
+    /**
+     * 获取本机网络地址，规则同 {@link #getLocalNetworkAddressList()}，返回紧凑的地址对象
+     *
+     * @return 带网卡名称和地址类型的地址列表
+     */
+    public List<IPAddress> getLocalAddresses() {
+        List<IPAddress> addressList = new ArrayList<>();
 
         try {
             Enumeration<NetworkInterface> networkInterfaces = NetworkInterface.getNetworkInterfaces();
@@ -65,16 +90,13 @@ public class NetworkService {
                         hostAddress = hostAddress.substring(0, scopeIndex);
                     }
 
-                    // 确定IP地址类型
-                    String ipType = address instanceof java.net.Inet6Address ? "IPv6" : "IPv4";
-
                     // 判断IPv6地址类型（稳定地址或临时地址）
-                    String addressType = "";
+                    IPAddress.Stability stability = IPAddress.Stability.NONE;
                     if (address instanceof java.net.Inet6Address) {
                         if (isTemporaryIPv6Address(hostAddress)) {
-                            addressType = "(临时地址)";
+                            stability = IPAddress.Stability.TEMPORARY;
                         } else {
-                            addressType = "(稳定地址)";
+                            stability = IPAddress.Stability.STABLE;
                         }
                     }
 
@@ -85,7 +107,7 @@ public class NetworkService {
                     if (!address.isLoopbackAddress() &&
                             !hostAddress.contains("0:0:0") &&
                             !hostAddress.startsWith("fe80")) {
-                        addressList.add(new IPInfoDTO(displayName, ipType, addressType, hostAddress));
+                        addressList.add(IPAddress.of(address.getAddress()).withInterface(displayName, stability));
                     }
                 }
             }
@@ -147,12 +169,62 @@ public class NetworkService {
     }
 
 
+    /**
+     * 启动网络地址变化事件源
+     * Linux 上优先使用 netlink 订阅内核地址事件，失败时退回到 /proc/net/if_inet6 校验和（只覆盖IPv6）；
+     * 其他平台没有可用的事件源，只能依赖定时检测
+     *
+     * @param onChange 地址可能发生变化时的回调
+     * @return 已启动的事件源，没有可用事件源时返回 null
+     */
+    public NetworkChangeSource startChangeSource(Runnable onChange) {
+        if (!Platform.isLinux()) {
+            return null;
+        }
+        List<NetworkChangeSource> candidates = new ArrayList<>();
+        candidates.add(new NetlinkChangeSource());
+        if (PROC_IF_INET6.canRead()) {
+            candidates.add(new ProcFileChangeSource(PROC_IF_INET6));
+        }
+        for (NetworkChangeSource source : candidates) {
+            try {
+                source.start(onChange);
+                log.info("网络变化事件源：{}", source.name());
+                return source;
+            } catch (Throwable e) {
+                // JNA 加载失败时抛出的是 Error
+                log.warn("网络变化事件源 {} 不可用：{}", source.name(), e.toString());
+            }
+        }
+        return null;
+    }
 
+    /**
+     * 保存当前本机地址到程序目录，并作为下一次比较的基准
+     *
+     * @param filePath 目录
+     */
     public void saveLocalIP(String filePath) {
-        List<IPInfoDTO> ipInfoDTOList = getLocalNetworkAddressList();
-        String configJson = JSONUtil.toJsonStr(ipInfoDTOList);
-        File file = new File(filePath, LOCAL_IP_FILE_NAME);
-        FileUtil.writeUtf8String(configJson, file);
+        saveLocalIP(IPDiff.between(new LinkedHashMap<>(), getLocalAddresses()), filePath);
+    }
+
+    /**
+     * 确认一次差异（例如通知发送成功后），以差异中的当前地址作为新的基准
+     * 只在有变化时写入 localIP.json
+     *
+     * @param diff     差异
+     * @param filePath 目录
+     */
+    public synchronized void saveLocalIP(IPDiff diff, String filePath) {
+        snapshot = new LinkedHashMap<>(diff.getCurrent());
+        if (!diff.isEmpty() || !new File(filePath, LOCAL_IP_FILE_NAME).exists()) {
+            List<IPInfoDTO> ipInfoDTOList = new ArrayList<>(snapshot.size());
+            for (IPAddress address : snapshot.values()) {
+                ipInfoDTOList.add(address.toDTO());
+            }
+            String configJson = JSONUtil.toJsonStr(ipInfoDTOList);
+            FileUtil.writeUtf8String(configJson, new File(filePath, LOCAL_IP_FILE_NAME));
+        }
     }
 
     public List<IPInfoDTO> readLocalIP(String filePath) {
@@ -161,48 +233,26 @@ public class NetworkService {
             return new ArrayList<>();
         }
         String configJson = FileUtil.readUtf8String(file);
-        List<IPInfoDTO> ipInfoDTOList = JSONUtil.toList(configJson, IPInfoDTO.class);
-        // 使用 Hutool 的 FileUtil.readLines 方法读取文件内容
-        return ipInfoDTOList;
-
+        return JSONUtil.toList(configJson, IPInfoDTO.class);
     }
 
-
-public List<IPInfoDTO> filterIPList() {
-    List<IPInfoDTO> newIPList = getLocalNetworkAddressList();
-    List<IPInfoDTO> oldIpList = readLocalIP(AppUtil.getAppDir());
-    if (CollUtil.isEmpty(oldIpList)){
-        return newIPList;
-    }
-
-    List<IPInfoDTO> changedOrNewIPs = new ArrayList<>();
-
-    // 查找新增或变更的IP地址
-    for (IPInfoDTO newIP : newIPList) {
-        boolean isNew = true;
-        for (IPInfoDTO oldIP : oldIpList) {
-            // 如果找到匹配的IP记录，比较其详细信息
-            if (newIP.getIpAddress().equals(oldIP.getIpAddress())) {
-                isNew = false;
-                // 检查其他属性是否有变化
-                if (!newIP.getNetworkName().equals(oldIP.getNetworkName()) ||
-                    !newIP.getIpType().equals(oldIP.getIpType()) ||
-                    !newIP.getAddressType().equals(oldIP.getAddressType())) {
-                    // 有变化，添加到结果列表
-                    changedOrNewIPs.add(newIP);
+    /**
+     * 比较当前本机地址与上一次确认的地址
+     * 基准保存在内存中，只在首次调用时从 localIP.json 读取；比较结果不会自动成为新的基准，
+     * 调用方处理完变化后应调用 {@link #saveLocalIP(IPDiff, String)}
+     *
+     * @return 新增、删除和信息变化的地址
+     */
+    public synchronized IPDiff filterIPList() {
+        if (snapshot == null) {
+            snapshot = new LinkedHashMap<>();
+            for (IPInfoDTO ip : readLocalIP(AppUtil.getAppDir())) {
+                IPAddress address = IPAddress.fromDTO(ip);
+                if (address != null) {
+                    snapshot.put(address, address);
                 }
-                break;
             }
         }
-        // 如果是新IP地址，添加到结果列表
-        if (isNew) {
-            changedOrNewIPs.add(newIP);
-        }
+        return IPDiff.between(snapshot, getLocalAddresses());
     }
-    saveLocalIP(AppUtil.getAppDir());
-    return changedOrNewIPs;
-}
-
-
-
 }
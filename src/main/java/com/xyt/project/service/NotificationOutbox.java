@@ -0,0 +1,416 @@
+package com.xyt.project.service;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.xyt.project.model.IPAddress;
+import com.xyt.project.model.IPDiff;
+import com.xyt.project.model.IPInfoDTO;
+import com.xyt.project.notifier.Notifier;
+import com.xyt.project.util.Throwables;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IP变更通知发件箱
+ * 检测到变化后只把通知追加到程序目录下的日志文件，由单个后台线程发送，检测不会因邮件服务器阻塞；
+ * 同一设备尚未发出的通知合并为一条（保留最早的基准地址和最新的地址），地址来回变化时只发一封甚至不发；
+ * 发送失败后按指数退避（带随机抖动）重试，程序重启后从日志恢复未发出的通知。
+ * 作为 {@link Notifier} 使用时，通知即加入发件箱
+ * <p>
+ * 日志每行一条 JSON 记录：{@code {"type":"add","device":..,"before":[..],"after":[..]}} 表示加入或合并通知，
+ * {@code {"type":"done","device":..}} 表示该设备此前的通知已发出
+ */
+@Slf4j
+public class NotificationOutbox implements Notifier, AutoCloseable {
+
+    /**
+     * 日志文件名
+     */
+    public static final String OUTBOX_FILE_NAME = "notification_outbox.log";
+
+    /**
+     * 加入通知后等待合并的时间（毫秒）
+     */
+    private static final long COALESCE_DELAY_MILLIS = 5_000;
+
+    /**
+     * 首次重试的延迟（毫秒）
+     */
+    private static final long INITIAL_RETRY_MILLIS = 10_000;
+
+    /**
+     * 重试延迟的上限（毫秒）
+     */
+    private static final long MAX_RETRY_MILLIS = 30 * 60_000;
+
+    /**
+     * 抖动比例
+     */
+    private static final double JITTER_RATIO = 0.2;
+
+    /**
+     * 日志记录数超过该值时按当前待发送的通知重写
+     */
+    private static final int COMPACT_THRESHOLD = 200;
+
+    private static final String TYPE_ADD = "add";
+
+    private static final String TYPE_DONE = "done";
+
+    private final Path file;
+
+    private final Notifier delegate;
+
+    private final long coalesceDelayMillis;
+
+    private final ScheduledExecutorService worker;
+
+    /**
+     * 设备 -> 合并后待发送的通知
+     */
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+
+    /**
+     * 日志中的记录数
+     */
+    private int records;
+
+    /**
+     * 连续发送失败次数
+     */
+    private int failures;
+
+    /**
+     * 已安排的发送任务，没有时为 null
+     */
+    private ScheduledFuture<?> scheduled;
+
+    /**
+     * 打开发件箱，恢复日志中未发出的通知并安排发送
+     *
+     * @param dir      日志所在目录
+     * @param delegate 实际的发送方式，抛出异常表示失败，将延后重试
+     */
+    public NotificationOutbox(File dir, Notifier delegate) {
+        this(dir, delegate, COALESCE_DELAY_MILLIS);
+    }
+
+    NotificationOutbox(File dir, Notifier delegate, long coalesceDelayMillis) {
+        this(dir, OUTBOX_FILE_NAME, delegate, coalesceDelayMillis);
+    }
+
+    /**
+     * 使用指定日志文件打开发件箱，每种发送方式一个文件，各自在后台线程中发送和重试
+     *
+     * @param dir                 日志所在目录
+     * @param fileName            日志文件名
+     * @param delegate            实际的发送方式，抛出异常表示失败，将延后重试
+     * @param coalesceDelayMillis 加入通知后等待合并的时间（毫秒），0 表示立即发送
+     */
+    public NotificationOutbox(File dir, String fileName, Notifier delegate, long coalesceDelayMillis) {
+        this.coalesceDelayMillis = coalesceDelayMillis;
+        this.file = new File(dir, fileName).toPath();
+        this.delegate = delegate;
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "notification-outbox-" + delegate.name());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            load();
+        } catch (IOException e) {
+            log.error("读取通知日志失败：{}", Throwables.getStackTraceAsString(e));
+        }
+        synchronized (this) {
+            if (!pending.isEmpty()) {
+                log.info("恢复{}条未发出的通知", pending.size());
+                scheduleDrain(0);
+            }
+        }
+    }
+
+    /**
+     * 加入一次地址变化，与该设备尚未发出的通知合并
+     *
+     * @param device 设备名称
+     * @param diff   地址差异
+     * @throws IOException 写入日志失败时抛出
+     */
+    public synchronized void enqueue(String device, IPDiff diff) throws IOException {
+        Pending existing = pending.get(device);
+        Map<IPAddress, IPAddress> before = existing != null ? existing.before : diff.getPrevious();
+        List<IPAddress> after = new ArrayList<>(diff.getCurrent().values());
+        append(addRecord(device, before.values(), after));
+        if (existing != null) {
+            existing.update(after);
+        } else {
+            pending.put(device, new Pending(device, new LinkedHashMap<>(before), after));
+        }
+        // 稍等片刻再发送，短时间内的反复变化合并为一封；退避期间只合并，不提前重试
+        scheduleDrain(coalesceDelayMillis);
+    }
+
+    @Override
+    public void notify(String device, IPDiff diff) throws IOException {
+        enqueue(device, diff);
+    }
+
+    @Override
+    public String name() {
+        return "outbox(" + delegate.name() + ")";
+    }
+
+    /**
+     * 待发送的通知数
+     *
+     * @return 通知数
+     */
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * 停止后台线程并关闭发送方式，未发出的通知留在日志中，下次启动时发送
+     */
+    @Override
+    public void close() {
+        worker.shutdownNow();
+        if (delegate instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) delegate).close();
+            } catch (Exception e) {
+                log.debug("关闭通知方式失败：{}", e.getMessage());
+            }
+        }
+    }
+
+    private void scheduleDrain(long delayMillis) {
+        if (scheduled == null) {
+            scheduled = worker.schedule(this::drain, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 依次发送待发送的通知，全部发出或遇到失败时结束
+     */
+    private void drain() {
+        while (true) {
+            Pending next;
+            int version;
+            Map<IPAddress, IPAddress> before;
+            List<IPAddress> after;
+            synchronized (this) {
+                Iterator<Pending> iterator = pending.values().iterator();
+                if (!iterator.hasNext()) {
+                    scheduled = null;
+                    return;
+                }
+                next = iterator.next();
+                version = next.version;
+                before = next.before;
+                after = next.after;
+            }
+            IPDiff diff = IPDiff.between(before, after);
+            if (!diff.isEmpty()) {
+                try {
+                    delegate.notify(next.device, diff);
+                } catch (Exception e) {
+                    synchronized (this) {
+                        failures++;
+                        long delay = backoffDelay(failures);
+                        log.error("发送通知失败（连续{}次），{}毫秒后重试：{}", failures, delay, Throwables.getStackTraceAsString(e));
+                        scheduled = null;
+                        scheduleDrain(delay);
+                    }
+                    return;
+                }
+            }
+            synchronized (this) {
+                failures = 0;
+                try {
+                    acknowledge(next, version, after);
+                } catch (IOException e) {
+                    log.error("写入通知日志失败：{}", Throwables.getStackTraceAsString(e));
+                }
+            }
+        }
+    }
+
+    /**
+     * 记录通知已发出；发送期间又有新的变化时，以已发出的地址作为新的基准继续等待发送
+     */
+    private void acknowledge(Pending sent, int version, List<IPAddress> after) throws IOException {
+        if (sent.version == version) {
+            pending.remove(sent.device);
+        } else {
+            sent.before = toMap(after);
+        }
+        if (pending.isEmpty()) {
+            Files.deleteIfExists(file);
+            records = 0;
+            return;
+        }
+        append(doneRecord(sent.device));
+        if (pending.containsKey(sent.device)) {
+            append(addRecord(sent.device, sent.before.values(), sent.after));
+        }
+        if (records > COMPACT_THRESHOLD) {
+            compact();
+        }
+    }
+
+    private long backoffDelay(int failures) {
+        long base = Math.min(MAX_RETRY_MILLIS, INITIAL_RETRY_MILLIS << Math.min(failures - 1, 20));
+        double jitter = 1 + ThreadLocalRandom.current().nextDouble(-JITTER_RATIO, JITTER_RATIO);
+        return (long) (base * jitter);
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            JSONObject record;
+            try {
+                record = JSONUtil.parseObj(line);
+            } catch (RuntimeException e) {
+                // 程序在写入时退出留下的不完整记录
+                log.warn("跳过无法解析的通知记录：{}", line);
+                continue;
+            }
+            records++;
+            String device = record.getStr("device");
+            if (TYPE_DONE.equals(record.getStr("type"))) {
+                pending.remove(device);
+                continue;
+            }
+            List<IPAddress> after = toAddresses(record.getJSONArray("after"));
+            Pending existing = pending.get(device);
+            if (existing != null) {
+                existing.update(after);
+            } else {
+                pending.put(device, new Pending(device, toMap(toAddresses(record.getJSONArray("before"))), after));
+            }
+        }
+    }
+
+    /**
+     * 按当前待发送的通知重写日志
+     */
+    private void compact() throws IOException {
+        List<String> lines = new ArrayList<>(pending.size());
+        for (Pending item : pending.values()) {
+            lines.add(addRecord(item.device, item.before.values(), item.after));
+        }
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tempFile, lines, StandardCharsets.UTF_8);
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        records = lines.size();
+    }
+
+    private void append(String record) throws IOException {
+        Files.write(file, Collections.singletonList(record), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        records++;
+    }
+
+    private static String addRecord(String device, Collection<IPAddress> before, List<IPAddress> after) {
+        return JSONUtil.createObj()
+                .set("type", TYPE_ADD)
+                .set("device", device)
+                .set("before", toDTOList(before))
+                .set("after", toDTOList(after))
+                .toString();
+    }
+
+    private static String doneRecord(String device) {
+        return JSONUtil.createObj().set("type", TYPE_DONE).set("device", device).toString();
+    }
+
+    private static List<IPInfoDTO> toDTOList(Collection<IPAddress> addresses) {
+        List<IPInfoDTO> result = new ArrayList<>(addresses.size());
+        for (IPAddress address : addresses) {
+            result.add(address.toDTO());
+        }
+        return result;
+    }
+
+    private static List<IPAddress> toAddresses(JSONArray array) {
+        List<IPAddress> result = new ArrayList<>();
+        if (array == null) {
+            return result;
+        }
+        for (IPInfoDTO dto : JSONUtil.toList(array, IPInfoDTO.class)) {
+            IPAddress address = IPAddress.fromDTO(dto);
+            if (address != null) {
+                result.add(address);
+            }
+        }
+        return result;
+    }
+
+    private static Map<IPAddress, IPAddress> toMap(List<IPAddress> addresses) {
+        Map<IPAddress, IPAddress> map = new LinkedHashMap<>(addresses.size() * 2);
+        for (IPAddress address : addresses) {
+            map.putIfAbsent(address, address);
+        }
+        return map;
+    }
+
+    /**
+     * 某个设备合并后待发送的通知
+     */
+    private static final class Pending {
+
+        private final String device;
+
+        /**
+         * 上一次成功通知时的地址
+         */
+        private Map<IPAddress, IPAddress> before;
+
+        /**
+         * 最新的地址
+         */
+        private List<IPAddress> after;
+
+        /**
+         * 每次合并加一，用于判断发送期间是否又有变化
+         */
+        private int version;
+
+        Pending(String device, Map<IPAddress, IPAddress> before, List<IPAddress> after) {
+            this.device = device;
+            this.before = before;
+            this.after = after;
+        }
+
+        void update(List<IPAddress> after) {
+            this.after = after;
+            version++;
+        }
+    }
+}
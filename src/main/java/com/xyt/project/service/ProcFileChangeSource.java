@@ -0,0 +1,83 @@
+package com.xyt.project.service;
+
+import com.xyt.project.util.Throwables;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * 基于 /proc 文件校验和的地址变化事件源
+ * 每 500 毫秒读取一次 /proc/net/if_inet6（几百字节）并计算 CRC32，内容变化时回调；
+ * 比完整枚举网卡开销小得多，用于 netlink 不可用时
+ */
+@Slf4j
+public class ProcFileChangeSource implements NetworkChangeSource {
+
+    private static final long POLL_INTERVAL_MILLIS = 500;
+
+    private final File file;
+
+    private final byte[] buffer = new byte[4096];
+
+    private final CRC32 crc = new CRC32();
+
+    private long lastChecksum;
+
+    private ScheduledExecutorService scheduler;
+
+    public ProcFileChangeSource(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void start(Runnable onChange) throws IOException {
+        lastChecksum = checksum();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "proc-net-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                long checksum = checksum();
+                if (checksum != lastChecksum) {
+                    lastChecksum = checksum;
+                    onChange.run();
+                }
+            } catch (IOException e) {
+                log.error("读取 {} 失败：{}", file, Throwables.getStackTraceAsString(e));
+            }
+        }, POLL_INTERVAL_MILLIS, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private long checksum() throws IOException {
+        crc.reset();
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public String name() {
+        return file.getPath();
+    }
+}
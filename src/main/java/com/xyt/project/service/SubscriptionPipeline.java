@@ -0,0 +1,236 @@
+package com.xyt.project.service;
+
+import com.xyt.project.model.HostEntry;
+import com.xyt.project.model.HostnameTable;
+import com.xyt.project.model.Subscription;
+import com.xyt.project.util.Throwables;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 订阅并行拉取流水线
+ * 在有界线程池上同时拉取多个订阅，每个订阅边下载边解析，超时从该订阅开始拉取时单独计算；
+ * 单个订阅超时或失败只影响自身，其他订阅照常合并。
+ * 有订阅变化时，按订阅顺序对全部订阅的最新内容重新去重（未变化或失败的订阅使用内容缓存），
+ * 重复的主机名只保留在排序靠前的订阅里，结果与完成先后和历史写入无关，最后合并为一次批量变更
+ */
+@Slf4j
+public class SubscriptionPipeline {
+
+    /**
+     * 默认并发数
+     */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    /**
+     * 默认单个订阅的超时时间
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 60000;
+
+    private final SubscriptionService subscriptionService;
+
+    private final ExecutorService executor;
+
+    private final long timeoutMillis;
+
+    public SubscriptionPipeline(SubscriptionService subscriptionService) {
+        this(subscriptionService, DEFAULT_PARALLELISM, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public SubscriptionPipeline(SubscriptionService subscriptionService, int parallelism, long timeoutMillis) {
+        this.subscriptionService = subscriptionService;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelism, parallelism, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "subscription-fetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    /**
+     * 并行拉取全部订阅并合并为一次批量变更
+     * 有变化的订阅会更新其 ETag / Last-Modified 和内容缓存；失败的订阅不更新缓存标记
+     *
+     * @param subscriptions 订阅列表
+     * @param cacheDir      订阅内容缓存目录
+     * @return 拉取结果
+     */
+    public Result fetchAll(List<Subscription> subscriptions, File cacheDir) {
+        Map<Subscription, Future<List<HostEntry>>> futures = new LinkedHashMap<>();
+        Map<Subscription, Subscription> requests = new LinkedHashMap<>();
+        // 各任务开始拉取时记录的截止时间，尚未开始时为 0
+        Map<Subscription, AtomicLong> deadlines = new LinkedHashMap<>();
+        for (Subscription subscription : subscriptions) {
+            // 在副本上拉取，失败的任务不会改动原订阅的缓存标记
+            Subscription request = new Subscription(subscription.getName(), subscription.getUrl());
+            // 没有内容缓存时不发条件请求，保证去重时每个订阅都有完整内容
+            if (SubscriptionService.hasCache(cacheDir, subscription.getName())) {
+                request.setEtag(subscription.getEtag());
+                request.setLastModified(subscription.getLastModified());
+            }
+            requests.put(subscription, request);
+            AtomicLong taskDeadline = new AtomicLong();
+            deadlines.put(subscription, taskDeadline);
+            futures.put(subscription, executor.submit(() -> {
+                // 超时从开始拉取时计算，排队等待线程的时间不计入；连接和读取超时按剩余时间设置，每次读取检查截止时间
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+                taskDeadline.set(deadline == 0 ? 1 : deadline);
+                List<HostEntry> entries = subscriptionService.fetch(request, deadline);
+                if (entries != null) {
+                    SubscriptionService.writeCache(cacheDir, request.getName(), entries);
+                }
+                return entries;
+            }));
+        }
+
+        // 按订阅顺序收集结果
+        Map<Subscription, List<HostEntry>> fetched = new LinkedHashMap<>();
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<Subscription, Future<List<HostEntry>>> entry : futures.entrySet()) {
+            Subscription subscription = entry.getKey();
+            Future<List<HostEntry>> future = entry.getValue();
+            try {
+                List<HostEntry> entries = await(future, deadlines.get(subscription));
+                if (entries != null) {
+                    fetched.put(subscription, entries);
+                    Subscription request = requests.get(subscription);
+                    subscription.setEtag(request.getEtag());
+                    subscription.setLastModified(request.getLastModified());
+                }
+            } catch (ExecutionException e) {
+                failures.add(subscription.getName());
+                log.error("拉取订阅 {} 失败：{}", subscription.getName(), Throwables.getStackTraceAsString(e.getCause()));
+            } catch (TimeoutException e) {
+                // 放弃该任务：中断后下一次读取即结束下载，结果不再使用
+                future.cancel(true);
+                failures.add(subscription.getName());
+                log.error("拉取订阅 {} 超时（{}毫秒）", subscription.getName(), timeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                failures.add(subscription.getName());
+            }
+        }
+        List<String> updated = new ArrayList<>();
+        for (Subscription subscription : fetched.keySet()) {
+            updated.add(subscription.getName());
+        }
+        HostsTransaction transaction = fetched.isEmpty() ? new HostsTransaction() : merge(subscriptions, fetched, cacheDir);
+        return new Result(transaction, updated, failures);
+    }
+
+    /**
+     * 等待任务完成，不超过该任务的截止时间；任务尚在排队时，前面的任务都有截止时间，等待也是有限的
+     */
+    private List<HostEntry> await(Future<List<HostEntry>> future, AtomicLong deadline)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        while (true) {
+            long started = deadline.get();
+            long waitNanos = started == 0 ? TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : started - System.nanoTime();
+            try {
+                return future.get(Math.max(0, waitNanos), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (started != 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 跨订阅去重：主机名已出现在排序靠前的订阅中时跳过
+     * 未变化（304）或拉取失败的订阅使用内容缓存参与去重并重新生成区块；从未拉取成功的订阅保留现有区块
+     */
+    private HostsTransaction merge(List<Subscription> subscriptions, Map<Subscription, List<HostEntry>> fetched, File cacheDir) {
+        HostnameTable seen = new HostnameTable();
+        HostsTransaction transaction = new HostsTransaction();
+        for (Subscription subscription : subscriptions) {
+            List<HostEntry> entries = fetched.get(subscription);
+            if (entries == null) {
+                entries = cached(cacheDir, subscription.getName());
+                if (entries == null) {
+                    continue;
+                }
+            }
+            List<HostEntry> unique = new ArrayList<>(entries.size());
+            for (HostEntry entry : entries) {
+                if (seen.putIfAbsent(entry.getHostname(), entry.getAddress())) {
+                    unique.add(entry);
+                }
+            }
+            transaction.replaceSection(subscription.getName(), unique);
+        }
+        return transaction;
+    }
+
+    private static List<HostEntry> cached(File cacheDir, String name) {
+        try {
+            return SubscriptionService.readCache(cacheDir, name);
+        } catch (IOException e) {
+            log.error("读取订阅 {} 的内容缓存失败：{}", name, Throwables.getStackTraceAsString(e));
+            return null;
+        }
+    }
+
+    /**
+     * 关闭线程池
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 拉取结果
+     */
+    public static class Result {
+
+        private final HostsTransaction transaction;
+
+        /**
+         * 内容有变化的订阅名称
+         */
+        private final List<String> updated;
+
+        /**
+         * 拉取失败或超时的订阅名称
+         */
+        private final List<String> failures;
+
+        Result(HostsTransaction transaction, List<String> updated, List<String> failures) {
+            this.transaction = transaction;
+            this.updated = updated;
+            this.failures = failures;
+        }
+
+        public HostsTransaction getTransaction() {
+            return transaction;
+        }
+
+        public List<String> getUpdated() {
+            return updated;
+        }
+
+        public List<String> getFailures() {
+            return failures;
+        }
+    }
+}
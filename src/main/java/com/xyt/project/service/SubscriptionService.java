@@ -0,0 +1,401 @@
+package com.xyt.project.service;
+
+import com.xyt.project.model.HostEntry;
+import com.xyt.project.model.HostnameTable;
+import com.xyt.project.model.IPAddress;
+import com.xyt.project.model.Subscription;
+import com.xyt.project.util.HostsLineTokenizer;
+import com.xyt.project.util.IPAddressParser;
+import com.xyt.project.util.Throwables;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * hosts 订阅服务
+ * 从订阅地址拉取 hosts 列表，写入 hosts 文件中以订阅名称命名的托管区块。
+ * 使用 ETag / Last-Modified 条件请求，订阅未变化时只产生一次 304 响应，不写磁盘。
+ * 每个订阅最近一次的内容缓存在程序目录的 subscriptions 目录下，跨订阅去重时 304 或拉取失败的订阅使用缓存内容
+ * <p>
+ * 订阅配置保存在程序目录的 subscription_config.properties 中：
+ * <pre>
+ * subscription.ads.url=https://example.com/hosts.txt
+ * </pre>
+ */
+@Slf4j
+public class SubscriptionService {
+
+    private static final String CONFIG_FILE_NAME = "subscription_config.properties";
+
+    private static final String KEY_PREFIX = "subscription.";
+
+    private static final String CACHE_DIR_NAME = "subscriptions";
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+
+    private static final int READ_TIMEOUT_MILLIS = 30000;
+
+    /**
+     * 订阅列表中常见的本机记录，不写入托管区块
+     */
+    private static final Set<String> IGNORED_HOSTNAMES = new HashSet<>(Arrays.asList(
+            "localhost", "localhost.localdomain", "local", "broadcasthost",
+            "ip6-localhost", "ip6-loopback", "ip6-localnet", "ip6-mcastprefix",
+            "ip6-allnodes", "ip6-allrouters", "ip6-allhosts", "0.0.0.0"));
+
+    private final HostsFileService hostsFileService;
+
+    private final SubscriptionPipeline pipeline;
+
+    public SubscriptionService(HostsFileService hostsFileService) {
+        this.hostsFileService = hostsFileService;
+        this.pipeline = new SubscriptionPipeline(this);
+    }
+
+    public HostsFileService getHostsFileService() {
+        return hostsFileService;
+    }
+
+    /**
+     * 读取订阅配置
+     *
+     * @param configDir 配置目录
+     * @return 订阅列表
+     */
+    public List<Subscription> loadSubscriptions(String configDir) {
+        List<Subscription> subscriptions = new ArrayList<>();
+        File configFile = new File(configDir, CONFIG_FILE_NAME);
+        if (!configFile.exists()) {
+            return subscriptions;
+        }
+        Properties props = new Properties();
+        try (FileInputStream fis = new FileInputStream(configFile)) {
+            props.load(fis);
+        } catch (IOException e) {
+            log.error("读取订阅配置文件失败：{}", Throwables.getStackTraceAsString(e));
+            return subscriptions;
+        }
+        // 按名称排序，保证托管区块顺序稳定
+        Set<String> names = new TreeSet<>();
+        for (String key : props.stringPropertyNames()) {
+            if (key.startsWith(KEY_PREFIX) && key.endsWith(".url")) {
+                names.add(key.substring(KEY_PREFIX.length(), key.length() - ".url".length()));
+            }
+        }
+        for (String name : names) {
+            String url = props.getProperty(KEY_PREFIX + name + ".url");
+            try {
+                parseUrl(url);
+            } catch (IOException e) {
+                log.error("忽略订阅 {}：{}", name, e.getMessage());
+                continue;
+            }
+            Subscription subscription = new Subscription(name, url);
+            subscription.setEtag(props.getProperty(KEY_PREFIX + name + ".etag"));
+            subscription.setLastModified(props.getProperty(KEY_PREFIX + name + ".last-modified"));
+            subscriptions.add(subscription);
+        }
+        return subscriptions;
+    }
+
+    /**
+     * 保存订阅配置（包括条件请求的缓存标记）
+     *
+     * @param subscriptions 订阅列表
+     * @param configDir     配置目录
+     * @throws IOException 写入失败时抛出
+     */
+    public void saveSubscriptions(List<Subscription> subscriptions, String configDir) throws IOException {
+        Properties props = new Properties();
+        for (Subscription subscription : subscriptions) {
+            String prefix = KEY_PREFIX + subscription.getName();
+            props.setProperty(prefix + ".url", subscription.getUrl());
+            if (subscription.getEtag() != null) {
+                props.setProperty(prefix + ".etag", subscription.getEtag());
+            }
+            if (subscription.getLastModified() != null) {
+                props.setProperty(prefix + ".last-modified", subscription.getLastModified());
+            }
+        }
+        try (FileOutputStream fos = new FileOutputStream(new File(configDir, CONFIG_FILE_NAME))) {
+            props.store(fos, "Hosts Subscriptions");
+        }
+    }
+
+    /**
+     * 刷新全部订阅并直接写入 hosts 文件（需要写入权限）
+     *
+     * @param configDir 配置目录
+     * @return 是否改写了 hosts 文件，没有配置订阅时直接返回 false
+     * @throws IOException 拉取或写入失败时抛出
+     */
+    public boolean refresh(String configDir) throws IOException {
+        List<Subscription> subscriptions = loadSubscriptions(configDir);
+        if (subscriptions.isEmpty()) {
+            return false;
+        }
+        HostsTransaction transaction = fetchUpdates(subscriptions, configDir).getTransaction();
+        if (transaction.isEmpty()) {
+            return false;
+        }
+        boolean changed = hostsFileService.apply(transaction);
+        // hosts 写入成功后才记录新的缓存标记，失败时下次重新拉取
+        saveSubscriptions(subscriptions, configDir);
+        return changed;
+    }
+
+    /**
+     * 并行拉取全部订阅，把有变化的订阅整理成一次批量变更
+     * 有变化的订阅会同时更新其 ETag / Last-Modified，调用方在写入 hosts 成功后应保存订阅配置
+     *
+     * @param subscriptions 订阅列表
+     * @param configDir     配置目录，订阅内容缓存在其下的 subscriptions 目录
+     * @return 拉取结果，全部未变化时批量变更为空
+     */
+    public SubscriptionPipeline.Result fetchUpdates(List<Subscription> subscriptions, String configDir) {
+        return pipeline.fetchAll(subscriptions, new File(configDir, CACHE_DIR_NAME));
+    }
+
+    /**
+     * 拉取一个订阅
+     *
+     * @param subscription 订阅
+     * @return 订阅中的记录，未变化（304）时返回 null
+     * @throws IOException 拉取失败时抛出
+     */
+    public List<HostEntry> fetch(Subscription subscription) throws IOException {
+        return fetch(subscription, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CONNECT_TIMEOUT_MILLIS + READ_TIMEOUT_MILLIS));
+    }
+
+    /**
+     * 在截止时间前拉取一个订阅，连接和读取超时按剩余时间设置，下载期间超过截止时间即放弃
+     *
+     * @param subscription  订阅
+     * @param deadlineNanos 截止时间（System.nanoTime）
+     * @return 订阅中的记录，未变化（304）时返回 null
+     * @throws IOException 拉取失败或超时时抛出
+     */
+    public List<HostEntry> fetch(Subscription subscription, long deadlineNanos) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) parseUrl(subscription.getUrl()).openConnection();
+        connection.setConnectTimeout(Math.min(CONNECT_TIMEOUT_MILLIS, remainingMillis(deadlineNanos)));
+        connection.setReadTimeout(Math.min(READ_TIMEOUT_MILLIS, remainingMillis(deadlineNanos)));
+        connection.setRequestProperty("Accept-Encoding", "identity");
+        if (subscription.getEtag() != null) {
+            connection.setRequestProperty("If-None-Match", subscription.getEtag());
+        }
+        if (subscription.getLastModified() != null) {
+            connection.setRequestProperty("If-Modified-Since", subscription.getLastModified());
+        }
+        try {
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                log.info("订阅 {} 未变化", subscription.getName());
+                return null;
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("拉取订阅 " + subscription.getName() + " 失败，HTTP状态码: " + status);
+            }
+            List<HostEntry> entries;
+            try (InputStream in = new DeadlineInputStream(connection.getInputStream(), deadlineNanos)) {
+                entries = parseHostsStream(in);
+            }
+            subscription.setEtag(connection.getHeaderField("ETag"));
+            subscription.setLastModified(connection.getHeaderField("Last-Modified"));
+            log.info("订阅 {} 已更新，共{}条记录", subscription.getName(), entries.size());
+            return entries;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * 距截止时间的剩余毫秒数
+     *
+     * @throws SocketTimeoutException 已超过截止时间时抛出
+     */
+    private static int remainingMillis(long deadlineNanos) throws SocketTimeoutException {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        if (remaining <= 0) {
+            throw new SocketTimeoutException("拉取订阅超时");
+        }
+        return (int) Math.min(Integer.MAX_VALUE, remaining);
+    }
+
+    /**
+     * 读取订阅内容缓存
+     *
+     * @param cacheDir 缓存目录
+     * @param name     订阅名称
+     * @return 缓存的记录，没有缓存时返回 null
+     * @throws IOException 读取失败时抛出
+     */
+    public static List<HostEntry> readCache(File cacheDir, String name) throws IOException {
+        File file = cacheFile(cacheDir, name);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            return parseHostsStream(in);
+        }
+    }
+
+    /**
+     * 保存订阅内容缓存，先写临时文件再替换
+     *
+     * @param cacheDir 缓存目录
+     * @param name     订阅名称
+     * @param entries  订阅中的记录
+     * @throws IOException 写入失败时抛出
+     */
+    public static void writeCache(File cacheDir, String name, List<HostEntry> entries) throws IOException {
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            throw new IOException("无法创建目录: " + cacheDir);
+        }
+        File file = cacheFile(cacheDir, name);
+        File tempFile = new File(cacheDir, file.getName() + ".tmp");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+            for (HostEntry entry : entries) {
+                writer.write(entry.toLine());
+                writer.write('\n');
+            }
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 是否有订阅内容缓存
+     *
+     * @param cacheDir 缓存目录
+     * @param name     订阅名称
+     * @return 是否有缓存
+     */
+    public static boolean hasCache(File cacheDir, String name) {
+        return cacheFile(cacheDir, name).isFile();
+    }
+
+    private static File cacheFile(File cacheDir, String name) {
+        return new File(cacheDir, name.replaceAll("[^A-Za-z0-9._-]", "_") + ".hosts");
+    }
+
+    /**
+     * 解析订阅地址，只支持 http / https
+     *
+     * @param url 订阅地址
+     * @return 地址
+     * @throws IOException 地址格式不正确或协议不支持时抛出
+     */
+    public static URL parseUrl(String url) throws IOException {
+        URL parsed = new URL(url);
+        String protocol = parsed.getProtocol().toLowerCase(Locale.ROOT);
+        if (!"http".equals(protocol) && !"https".equals(protocol)) {
+            throw new IOException("订阅地址只支持 http/https: " + url);
+        }
+        return parsed;
+    }
+
+    /**
+     * 逐行解析 hosts 格式的输入流，不缓存整个响应体
+     * 每个主机名只保留第一次出现的记录，忽略 localhost 等本机记录；
+     * IP地址直接在原行上解析，相同地址的记录共享同一个地址对象（订阅中绝大多数记录都指向 0.0.0.0）
+     *
+     * @param in 输入流
+     * @return 记录列表
+     * @throws IOException 读取失败时抛出
+     */
+    public static List<HostEntry> parseHostsStream(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        HostsLineTokenizer tokenizer = new HostsLineTokenizer();
+        IPAddressParser parser = new IPAddressParser();
+        Map<IPAddress, IPAddress> addresses = new HashMap<>();
+        // 订阅可能有上百万个主机名，去重用堆外的主机名表而不是 HashSet<String>
+        HostnameTable seen = new HostnameTable();
+        List<HostEntry> entries = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            tokenizer.reset(line);
+            if (!tokenizer.next() || !parser.parse(line, tokenizer.tokenStart(), tokenizer.tokenEnd())) {
+                continue;
+            }
+            IPAddress address = null;
+            while (tokenizer.next()) {
+                String hostname = tokenizer.token().toLowerCase(Locale.ROOT);
+                // 超过 255 字节的不是合法主机名
+                if (IGNORED_HOSTNAMES.contains(hostname) || !HostnameTable.fits(hostname)) {
+                    continue;
+                }
+                if (address == null) {
+                    address = parser.isIPv4() ? IPAddress.ofIPv4(parser.ipv4()) : IPAddress.ofIPv6(parser.hi(), parser.lo());
+                    IPAddress shared = addresses.putIfAbsent(address, address);
+                    if (shared != null) {
+                        address = shared;
+                    }
+                }
+                if (seen.putIfAbsent(hostname, address)) {
+                    entries.add(new HostEntry(address, hostname, null, null, -1));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 每次读取前检查截止时间和中断状态：服务端持续缓慢发送时读取超时不会触发，
+     * 超过截止时间或任务被放弃后，下一次读取即结束下载
+     */
+    private static final class DeadlineInputStream extends FilterInputStream {
+
+        private final long deadlineNanos;
+
+        DeadlineInputStream(InputStream in, long deadlineNanos) {
+            super(in);
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            check();
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            check();
+            return super.read(b, off, len);
+        }
+
+        private void check() throws IOException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("拉取订阅已取消");
+            }
+            remainingMillis(deadlineNanos);
+        }
+    }
+}
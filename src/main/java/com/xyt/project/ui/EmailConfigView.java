@@ -1,14 +1,16 @@
 package com.xyt.project.ui;
 
 import cn.hutool.core.util.StrUtil;
-import com.google.common.base.Throwables;
 import com.xyt.project.config.AppConfiguration;
 import com.xyt.project.email.EmailConfig;
 import com.xyt.project.email.EmailSender;
 import com.xyt.project.email.EmailService;
+import com.xyt.project.model.IPDiff;
 import com.xyt.project.model.IPInfoDTO;
+import com.xyt.project.notifier.EmailNotifier;
 import com.xyt.project.service.NetworkService;
 import com.xyt.project.util.AppUtil;
+import com.xyt.project.util.Throwables;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.mail.MessagingException;
@@ -16,7 +18,6 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
@@ -31,6 +32,11 @@ public class EmailConfigView {
 
     private JDialog emailDialog;
 
+    /**
+     * 邮件通知，主题和正文模板可在 notifier_config.properties 中修改
+     */
+    private final EmailNotifier emailNotifier;
+
 
     /**
      * 设备名称输入框
@@ -63,10 +69,15 @@ public class EmailConfigView {
     private JCheckBox autoSendCheckBox;
 
 
-    public EmailConfigView(JFrame parentFrame, NetworkService networkService) {
+    public EmailConfigView(JFrame parentFrame, NetworkService networkService, EmailNotifier emailNotifier) {
         this.parentFrame = parentFrame;
         emailService = new EmailService();
         this.networkService = networkService;
+        this.emailNotifier = emailNotifier;
+    }
+
+    public EmailNotifier getEmailNotifier() {
+        return emailNotifier;
     }
 
     public EmailService getEmailService() {
@@ -244,13 +255,18 @@ public class EmailConfigView {
 
 
     public String getEmailSendContent(String deviceName, List<IPInfoDTO> ipList) {
-        String templateStr = "网卡：{}{}：{} {}";
-        List<String> linList = new ArrayList<>();
-        for (IPInfoDTO ipInfoDTO : ipList) {
-            String format = StrUtil.format(templateStr, ipInfoDTO.getNetworkName(), ipInfoDTO.getAddressType(), ipInfoDTO.getIpAddress(), deviceName);
-            linList.add(format);
-        }
-        return StrUtil.join("\n", linList);
+        return emailNotifier.getTemplates().body(deviceName, ipList);
+    }
+
+    /**
+     * IP变更通知内容：新增和变化的地址，以及已移除的地址
+     *
+     * @param deviceName 设备名称
+     * @param diff       地址差异
+     * @return 邮件内容
+     */
+    public String getEmailSendContent(String deviceName, IPDiff diff) {
+        return emailNotifier.getTemplates().body(deviceName, diff);
     }
 
 
@@ -400,11 +416,6 @@ public class EmailConfigView {
     }
 
     public void sendEmail(EmailConfig emailConfig, List<IPInfoDTO> ipList) throws MessagingException {
-        EmailSender emailSender = new EmailSender(emailConfig);
-        String content = getEmailSendContent(emailConfig.getDeviceName(), ipList);
-        String fromName = "主机IP变更通知";
-        emailSender.sendSimpleEmail(fromName, emailConfig.getEmail(), emailConfig.getDeviceName(), content);
+        emailNotifier.send(emailConfig, ipList);
     }
-
-
 }
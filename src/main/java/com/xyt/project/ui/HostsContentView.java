@@ -0,0 +1,160 @@
+package com.xyt.project.ui;
+
+import cn.hutool.core.util.StrUtil;
+import com.xyt.project.service.AsyncHostsService;
+import com.xyt.project.service.HostsLineIndex;
+import com.xyt.project.util.Throwables;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+
+/**
+ * hosts 文件内容窗口
+ * 表格只绘制可见行；输入关键字后在后台线程筛选，输入停顿后才开始，过期的筛选结果直接丢弃
+ */
+@Slf4j
+public class HostsContentView {
+
+    /**
+     * 输入停顿多久后开始筛选（毫秒）
+     */
+    private static final int FILTER_DELAY_MILLIS = 250;
+
+    private final JFrame parentFrame;
+
+    private final AsyncHostsService asyncHostsService;
+
+    private final HostsTableModel model = new HostsTableModel();
+
+    private JDialog hostsDialog;
+
+    private JTextField searchField;
+
+    private JLabel statusLabel;
+
+    private Timer filterTimer;
+
+    /**
+     * 筛选请求序号，只采用最后一次请求的结果
+     */
+    private int filterGeneration;
+
+    public HostsContentView(JFrame parentFrame, AsyncHostsService asyncHostsService) {
+        this.parentFrame = parentFrame;
+        this.asyncHostsService = asyncHostsService;
+    }
+
+    /**
+     * 显示 hosts 文件内容，须在界面线程调用
+     *
+     * @param index 行索引
+     */
+    public void show(HostsLineIndex index) {
+        if (hostsDialog == null) {
+            initDialog();
+        }
+        model.setRows(index, new int[0]);
+        filter();
+        hostsDialog.setVisible(true);
+        hostsDialog.toFront();
+    }
+
+    private void initDialog() {
+        hostsDialog = new JDialog(parentFrame, "hosts文件内容", false);
+        hostsDialog.setSize(800, 600);
+        hostsDialog.setLocationRelativeTo(parentFrame);
+        hostsDialog.setDefaultCloseOperation(JDialog.HIDE_ON_CLOSE);
+        hostsDialog.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentHidden(ComponentEvent e) {
+                release();
+            }
+        });
+
+        JPanel hostsPanel = new JPanel(new BorderLayout(10, 10));
+        hostsPanel.setBorder(new EmptyBorder(15, 15, 15, 15));
+
+        // 搜索框
+        JPanel searchPanel = new JPanel(new BorderLayout(5, 5));
+        searchPanel.add(new JLabel("筛选:"), BorderLayout.WEST);
+        searchField = new JTextField();
+        searchField.setToolTipText("输入主机名或IP的一部分");
+        searchPanel.add(searchField, BorderLayout.CENTER);
+        hostsPanel.add(searchPanel, BorderLayout.NORTH);
+
+        filterTimer = new Timer(FILTER_DELAY_MILLIS, e -> filter());
+        filterTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filterTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filterTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                filterTimer.restart();
+            }
+        });
+
+        // 表格：固定行高，列宽不随内容计算，只有可见行会被解码
+        JTable table = new JTable(model);
+        table.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 14));
+        table.setRowHeight(table.getFontMetrics(table.getFont()).getHeight() + 4);
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_LAST_COLUMN);
+        table.getColumnModel().getColumn(0).setPreferredWidth(70);
+        table.getColumnModel().getColumn(0).setMaxWidth(100);
+        table.getColumnModel().getColumn(1).setPreferredWidth(700);
+        table.setFillsViewportHeight(true);
+        hostsPanel.add(new JScrollPane(table), BorderLayout.CENTER);
+
+        statusLabel = new JLabel(" ");
+        hostsPanel.add(statusLabel, BorderLayout.SOUTH);
+
+        hostsDialog.add(hostsPanel);
+    }
+
+    /**
+     * 窗口关闭后释放行索引（整个文件的内容），丢弃尚未返回的筛选结果
+     */
+    private void release() {
+        filterTimer.stop();
+        filterGeneration++;
+        model.setRows(null, new int[0]);
+        statusLabel.setText(" ");
+    }
+
+    /**
+     * 按搜索框内容在后台筛选非注释行
+     */
+    private void filter() {
+        HostsLineIndex index = model.getIndex();
+        String keyword = searchField.getText().trim();
+        int generation = ++filterGeneration;
+        statusLabel.setText("正在筛选...");
+        asyncHostsService.submit(() -> index.findEntryLines(keyword))
+                .whenComplete((rows, error) -> SwingUtilities.invokeLater(() -> {
+                    if (generation != filterGeneration) {
+                        // 已有更新的筛选请求
+                        return;
+                    }
+                    if (error != null) {
+                        log.error("筛选hosts文件失败：{}", Throwables.getStackTraceAsString(error));
+                        statusLabel.setText("筛选失败: " + Throwables.getRootCause(error).getMessage());
+                        return;
+                    }
+                    model.setRows(index, rows);
+                    statusLabel.setText(StrUtil.format("文件共{}行，显示{}行", index.lineCount(), rows.length));
+                }));
+    }
+}
@@ -0,0 +1,66 @@
+package com.xyt.project.ui;
+
+import com.xyt.project.service.HostsLineIndex;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * hosts 文件表格模型
+ * 只保存行索引和当前显示的行号，JTable 绘制可见行时才从索引解码行内容，
+ * 几十万行的文件也不会整体转换成字符串或组件
+ */
+public class HostsTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] COLUMN_NAMES = {"行号", "内容"};
+
+    private transient HostsLineIndex index;
+
+    /**
+     * 当前显示的行号（已过滤）
+     */
+    private int[] rows = new int[0];
+
+    /**
+     * 替换显示的内容，须在界面线程调用
+     *
+     * @param index 行索引，为 null 时清空
+     * @param rows  显示的行号
+     */
+    public void setRows(HostsLineIndex index, int[] rows) {
+        this.index = index;
+        this.rows = rows;
+        fireTableDataChanged();
+    }
+
+    public HostsLineIndex getIndex() {
+        return index;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 0 ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int lineNumber = rows[row];
+        return column == 0 ? Integer.valueOf(lineNumber + 1) : index.line(lineNumber);
+    }
+}
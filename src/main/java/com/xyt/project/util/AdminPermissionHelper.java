@@ -1,6 +1,5 @@
 package com.xyt.project.util;
 
-import com.google.common.base.Throwables;
 import com.sun.jna.Library;
 import com.sun.jna.Native;
 import com.sun.jna.Platform;
@@ -8,16 +7,60 @@ import com.sun.jna.platform.win32.Advapi32;
 import com.sun.jna.platform.win32.Kernel32;
 import com.sun.jna.platform.win32.WinNT;
 import com.sun.jna.ptr.IntByReference;
+import com.xyt.project.Launcher;
+import com.xyt.project.service.HostsFileService;
+import com.xyt.project.service.HostsHelperClient;
+import com.xyt.project.service.HostsHelperServer;
+import com.xyt.project.service.HostsTransaction;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 @Slf4j
 public class AdminPermissionHelper {
 
+    /**
+     * 写入进程的命令行参数
+     */
+    public static final String WRITE_HOSTS_OPTION = "--write-hosts";
+
+    /**
+     * 写入进程的退出码：成功
+     */
+    public static final int WRITER_EXIT_SUCCESS = 0;
+
+    /**
+     * 写入进程的退出码：已获得权限但读取变更或写入失败，与 sudo/pkexec 拒绝执行时的退出码（1、126、127）区分
+     */
+    public static final int WRITER_EXIT_FAILED = 3;
+
+    /**
+     * 等待提权助手启动的最长时间（毫秒），包括用户确认权限请求的时间
+     */
+    private static final long HELPER_START_TIMEOUT_MILLIS = 120_000;
+
+    /**
+     * 提权助手的连接，首次需要管理员权限时建立
+     */
+    private static HostsHelperClient helperClient;
+
     // macOS/Linux的libc接口
     interface CLibrary extends Library {
         CLibrary INSTANCE = (CLibrary) Native.loadLibrary("c", CLibrary.class);
@@ -74,13 +117,7 @@ public class AdminPermissionHelper {
      * @throws IOException 操作失败时抛出
      */
     public static void updateHostsWithAdminPrivileges(String hostname, List<String> ipv6Addresses) throws IOException {
-        String os = System.getProperty("os.name").toLowerCase();
-
-        if (os.contains("win")) {
-            updateHostsWindows(hostname, ipv6Addresses);
-        } else if (os.contains("mac")) {
-            updateHostsMac(hostname, ipv6Addresses);
-        }
+        applyWithAdminPrivileges(new HostsTransaction().upsert(hostname, ipv6Addresses));
     }
 
     /**
@@ -89,165 +126,380 @@ public class AdminPermissionHelper {
      * @throws IOException 操作失败时抛出
      */
     public static void deleteHostsWithAdminPrivileges(String hostname) throws IOException {
-        String os = System.getProperty("os.name").toLowerCase();
+        applyWithAdminPrivileges(new HostsTransaction().delete(hostname));
+    }
 
-        if (os.contains("win")) {
-            deleteHostsWindows(hostname);
-        } else if (os.contains("mac")) {
-            deleteHostsMac(hostname);
+    /**
+     * 以管理员权限执行hosts批量变更，整批只启动一个提权进程
+     * @param transaction 批量变更
+     * @throws IOException 操作失败时抛出
+     */
+    public static void applyWithAdminPrivileges(HostsTransaction transaction) throws IOException {
+        applyWithAdminPrivileges(new HostsFileService(), transaction);
+    }
+
+    /**
+     * 以管理员权限执行hosts批量变更
+     * 首次调用时以管理员权限启动常驻的提权助手（只请求一次权限），之后的变更都通过本机连接交给助手写入；
+     * 助手无法启动时退回到每次启动提权写入进程应用变更
+     * @param hostsFileService hosts文件服务
+     * @param transaction 批量变更
+     * @throws IOException 操作失败时抛出
+     */
+    public static void applyWithAdminPrivileges(HostsFileService hostsFileService, HostsTransaction transaction) throws IOException {
+        if (transaction.isEmpty()) {
+            return;
         }
+        HostsHelperClient helper = getHelper();
+        if (helper != null) {
+            try {
+                helper.apply(transaction);
+                return;
+            } catch (IOException e) {
+                if (!helper.isClosed()) {
+                    // 助手已收到变更但写入失败，不再重复提交
+                    throw e;
+                }
+                // 连接断开或等待结果超时，助手可能已写入，变更重复应用结果相同
+                log.warn("与提权助手的连接已断开，改为单次提权写入：{}", e.getMessage());
+            }
+        }
+        replaceWithAdminPrivileges(hostsFileService, transaction);
     }
 
-    private static void updateHostsWindows(String hostname, List<String> ipv6Addresses) throws IOException {
-        try {
-            // 创建PowerShell脚本内容
-            StringBuilder psScript = new StringBuilder();
-            psScript.append("try {\n");
-            psScript.append("  $content = Get-Content -Path \"$env:SystemRoot\\System32\\drivers\\etc\\hosts\"\n");
-            psScript.append("  $newContent = $content | Where-Object { $_ -notlike \"*$hostname*\" }\n");
-
-            // 添加新的映射
-            for (String ip : ipv6Addresses) {
-                psScript.append("  $newContent += \"").append(ip).append("    ").append(hostname).append("\"\n");
+    /**
+     * 获取提权助手的连接，未启动或连接已断开时启动新的助手
+     * @return 连接，当前系统不支持或助手未能启动时返回 null
+     * @throws IOException 管理员权限请求被拒绝时抛出
+     */
+    private static synchronized HostsHelperClient getHelper() throws IOException {
+        if (helperClient != null && !helperClient.isClosed()) {
+            return helperClient;
+        }
+        helperClient = null;
+        Path appDir = Paths.get(AppUtil.getAppDir());
+        String[] cmd = helperCommand(appDir);
+        if (cmd == null) {
+            // 不支持常驻助手的系统上不生成令牌、不动端口文件
+            return null;
+        }
+        Path portFile = appDir.resolve(HostsHelperServer.PORT_FILE);
+        String token = writeToken(appDir.resolve(HostsHelperServer.TOKEN_FILE));
+        Files.deleteIfExists(portFile);
+        launchHelper(cmd);
+
+        // 等待用户确认权限请求、助手写出端口
+        long deadline = System.currentTimeMillis() + HELPER_START_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            Integer port = readPort(portFile);
+            if (port != null) {
+                try {
+                    helperClient = HostsHelperClient.connect(port, token);
+                    log.info("已连接提权助手，端口：{}", port);
+                } catch (IOException e) {
+                    log.warn("连接提权助手失败：{}", e.getMessage());
+                }
+                return helperClient;
+            }
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("操作被中断", e);
             }
+        }
+        log.warn("等待提权助手启动超时");
+        return null;
+    }
 
-            psScript.append("  $newContent | Out-File -FilePath \"$env:SystemRoot\\System32\\drivers\\etc\\hosts\" -Encoding UTF8\n");
-            psScript.append("  Write-Output \"success\"\n");
-            psScript.append("} catch {\n");
-            psScript.append("  Write-Error \"$_\"\n");
-            psScript.append("}\n");
+    /**
+     * 生成新的令牌，写入只有当前用户可读的文件
+     */
+    private static String writeToken(Path tokenFile) throws IOException {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder token = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            token.append(String.format("%02x", b));
+        }
+        Files.deleteIfExists(tokenFile);
+        Files.createFile(tokenFile);
+        try {
+            Files.setPosixFilePermissions(tokenFile, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // Windows 下程序目录默认只有当前用户和管理员可写
+        }
+        Files.write(tokenFile, token.toString().getBytes(StandardCharsets.UTF_8));
+        return token.toString();
+    }
 
-            // 写入临时脚本文件
-            File tempScript = File.createTempFile("updateHosts", ".ps1");
-            tempScript.deleteOnExit();
-            Files.write(tempScript.toPath(), psScript.toString().getBytes("UTF-8"));
+    private static Integer readPort(Path portFile) {
+        try {
+            return Integer.valueOf(new String(Files.readAllBytes(portFile), StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
 
-            // 执行PowerShell脚本
-            String[] cmd = {
-                    "powershell.exe", "-ExecutionPolicy", "Bypass", "-File", tempScript.getAbsolutePath()
+    /**
+     * 以管理员权限启动提权助手进程的命令
+     * Linux 上的 sudo/pkexec 不能在请求授权后把进程留在后台运行，不使用常驻助手，每次变更启动一次写入进程
+     * @return 命令，当前系统不支持时返回 null
+     */
+    private static String[] helperCommand(Path appDir) {
+        String os = System.getProperty("os.name").toLowerCase();
+        String javaHome = System.getProperty("java.home");
+        String classPath = System.getProperty("java.class.path");
+        String mainClass = Launcher.class.getName();
+        if (os.contains("win")) {
+            File javaw = new File(javaHome, "bin\\javaw.exe");
+            String arguments = "-cp \"" + classPath + "\" " + mainClass + " " + HostsHelperServer.HELPER_OPTION + " --dir \"" + appDir + "\"";
+            return new String[]{
+                    "powershell.exe", "-NoProfile", "-Command",
+                    "Start-Process -FilePath " + quotePowerShell(javaw.getPath())
+                            + " -ArgumentList " + quotePowerShell(arguments) + " -Verb RunAs -WindowStyle Hidden"
             };
+        } else if (os.contains("mac")) {
+            String command = quoteShell(new File(javaHome, "bin/java").getPath()) + " -cp " + quoteShell(classPath)
+                    + " " + mainClass + " " + HostsHelperServer.HELPER_OPTION + " --dir " + quoteShell(appDir.toString()) + " > /dev/null 2>&1 &";
+            return new String[]{
+                    "osascript", "-e",
+                    "do shell script \"" + command.replace("\\", "\\\\").replace("\"", "\\\"") + "\" with administrator privileges"
+            };
+        }
+        return null;
+    }
 
+    /**
+     * 以管理员权限启动提权助手进程，不等待助手退出
+     * @throws IOException 权限请求被拒绝或启动失败时抛出
+     */
+    private static void launchHelper(String[] cmd) throws IOException {
+        try {
             Process process = Runtime.getRuntime().exec(cmd);
-            int exitCode = process.waitFor();
-
-            if (exitCode != 0) {
-                throw new IOException("PowerShell脚本执行失败");
+            if (process.waitFor() != 0) {
+                throw new IOException("管理员权限请求被拒绝或执行失败");
             }
-        } catch (Exception e) {
-            throw new IOException("更新hosts文件失败: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("操作被中断", e);
         }
     }
 
-    private static void deleteHostsWindows(String hostname) throws IOException {
-        try {
-            // 创建PowerShell脚本内容
-            StringBuilder psScript = new StringBuilder();
-            psScript.append("try {\n");
-            psScript.append("  $content = Get-Content -Path \"$env:SystemRoot\\System32\\drivers\\etc\\hosts\"\n");
-            psScript.append("  $newContent = $content | Where-Object { $_ -notlike \"*$hostname*\" }\n");
-            psScript.append("  $newContent | Out-File -FilePath \"$env:SystemRoot\\System32\\drivers\\etc\\hosts\" -Encoding UTF8\n");
-            psScript.append("  Write-Output \"success\"\n");
-            psScript.append("} catch {\n");
-            psScript.append("  Write-Error \"$_\"\n");
-            psScript.append("}\n");
-
-            // 写入临时脚本文件
-            File tempScript = File.createTempFile("deleteHosts", ".ps1");
-            tempScript.deleteOnExit();
-            Files.write(tempScript.toPath(), psScript.toString().getBytes("UTF-8"));
-
-            // 执行PowerShell脚本
-            String[] cmd = {
-                    "powershell.exe", "-ExecutionPolicy", "Bypass", "-File", tempScript.getAbsolutePath()
-            };
+    private static String quotePowerShell(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
 
-            Process process = Runtime.getRuntime().exec(cmd);
-            int exitCode = process.waitFor();
+    private static String quoteShell(String value) {
+        return "'" + value.replace("'", "'\\''") + "'";
+    }
 
-            if (exitCode != 0) {
-                throw new IOException("PowerShell脚本执行失败");
-            }
-        } catch (Exception e) {
-            throw new IOException("删除hosts记录失败: " + e.getMessage(), e);
+    /**
+     * 启动一次性的提权写入进程应用批量变更，每次变更都需要请求权限
+     * 传给提权进程的是批量变更而不是算好的新内容，提权进程在提交锁内基于最新的 hosts 内容应用，
+     * 请求权限期间其他程序对 hosts 的修改不会被覆盖
+     */
+    private static void replaceWithAdminPrivileges(HostsFileService hostsFileService, HostsTransaction transaction) throws IOException {
+        File target = hostsFileService.getHostsFile().getAbsoluteFile();
+        String os = System.getProperty("os.name").toLowerCase();
+        if (!os.contains("win") && !os.contains("mac")) {
+            applyLinux(transaction, target);
+            return;
         }
-    }
 
-    private static void updateHostsMac(String hostname, List<String> ipv6Addresses) throws IOException {
+        // Windows/macOS 的提权方式无法传递标准输入，变更写入临时文件
+        File transactionFile = File.createTempFile("hosts_", ".transaction");
         try {
-            // 创建临时脚本文件
-            File scriptFile = File.createTempFile("hosts_editor_", ".sh");
-            scriptFile.deleteOnExit();
-            scriptFile.setExecutable(true);
-
-            // 写入脚本内容
-            StringBuilder scriptContent = new StringBuilder();
-            scriptContent.append("#!/bin/bash\n");
-            scriptContent.append("grep -v \"").append(hostname).append("\" /etc/hosts > /tmp/hosts.tmp\n");
-
-            // 添加新的映射
-            for (String ip : ipv6Addresses) {
-                scriptContent.append("echo \"").append(ip).append("    ").append(hostname)
-                        .append("\" >> /tmp/hosts.tmp\n");
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(transactionFile))) {
+                transaction.writeTo(out);
             }
+            int exitCode = os.contains("win") ? runWriterWindows(target, transactionFile) : runWriterMac(target, transactionFile);
+            checkWriterExitCode(exitCode);
+        } finally {
+            Files.deleteIfExists(transactionFile.toPath());
+        }
+    }
 
-            scriptContent.append("cp /tmp/hosts.tmp /etc/hosts\n");
-            scriptContent.append("rm /tmp/hosts.tmp\n");
-
-            Files.write(scriptFile.toPath(), scriptContent.toString().getBytes());
+    /**
+     * Linux：启动一个以 root 运行的本程序写入进程（{@code --write-hosts}），批量变更经标准输入传入；
+     * 优先使用 sudo -n（已缓存凭据或免密时无需提示），sudo 拒绝执行时才由 pkexec 通过 polkit 请求授权。
+     * 写入进程已运行但写入失败时不再换用 pkexec，避免重复提示
+     */
+    private static void applyLinux(HostsTransaction transaction, File target) throws IOException {
+        List<String> command = writerCommand(new File(System.getProperty("java.home"), "bin/java"), target, null);
+        for (String[] prefix : new String[][]{{"sudo", "-n"}, {"pkexec"}}) {
+            List<String> cmd = new ArrayList<>(Arrays.asList(prefix));
+            cmd.addAll(command);
+            int exitCode;
+            try {
+                exitCode = writeToProcess(cmd, transaction);
+            } catch (IOException e) {
+                log.info("{} 不可用：{}", prefix[0], e.getMessage());
+                continue;
+            }
+            if (exitCode == WRITER_EXIT_SUCCESS || exitCode == WRITER_EXIT_FAILED) {
+                checkWriterExitCode(exitCode);
+                return;
+            }
+            log.info("{} 未能获得管理员权限，退出码：{}", prefix[0], exitCode);
+        }
+        throw new IOException("管理员权限请求被拒绝或执行失败");
+    }
 
-            // 使用osascript请求管理员权限执行脚本
-            String[] cmd = {
-                    "osascript", "-e",
-                    "do shell script \"bash " + scriptFile.getAbsolutePath() + "\" with administrator privileges"
-            };
+    /**
+     * 写入进程的命令行
+     *
+     * @param transactionFile 批量变更文件，为 null 时从标准输入读取
+     */
+    private static List<String> writerCommand(File java, File target, File transactionFile) {
+        List<String> command = new ArrayList<>(Arrays.asList(
+                java.getPath(),
+                "-cp", System.getProperty("java.class.path"),
+                Launcher.class.getName(),
+                WRITE_HOSTS_OPTION, "--hosts", target.getPath()));
+        if (transactionFile != null) {
+            command.add("--transaction");
+            command.add(transactionFile.getAbsolutePath());
+        }
+        return command;
+    }
 
-            Process process = Runtime.getRuntime().exec(cmd);
-            int exitCode = process.waitFor();
+    private static void checkWriterExitCode(int exitCode) throws IOException {
+        if (exitCode == WRITER_EXIT_FAILED) {
+            throw new IOException("提权进程写入hosts文件失败，详见日志");
+        }
+        if (exitCode != WRITER_EXIT_SUCCESS) {
+            throw new IOException("管理员权限请求被拒绝或执行失败");
+        }
+    }
 
-            if (exitCode != 0) {
-                throw new IOException("管理员权限请求被拒绝或执行失败");
-            }
+    /**
+     * 启动进程并把批量变更写入其标准输入
+     * @return 进程退出码
+     * @throws IOException 进程无法启动时抛出
+     */
+    private static int writeToProcess(List<String> command, HostsTransaction transaction) throws IOException {
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        try (OutputStream stdin = new BufferedOutputStream(process.getOutputStream())) {
+            transaction.writeTo(stdin);
+        } catch (IOException e) {
+            // 进程未读取输入就退出了（如 sudo 需要密码），以退出码为准
+            log.debug("写入进程输入失败：{}", e.getMessage());
+        }
+        try {
+            return process.waitFor();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+            process.destroy();
             throw new IOException("操作被中断", e);
-        } catch (Exception e) {
-            throw new IOException("更新hosts文件失败: " + e.getMessage(), e);
         }
     }
 
-    private static void deleteHostsMac(String hostname) throws IOException {
+    /**
+     * 写入进程入口：{@code --write-hosts [--hosts hosts文件] [--transaction 批量变更文件]}，
+     * 未指定批量变更文件时从标准输入读取；在提交锁内基于最新的 hosts 内容应用变更
+     * @param args 命令行参数
+     * @return 退出码，{@link #WRITER_EXIT_SUCCESS} 表示成功，{@link #WRITER_EXIT_FAILED} 表示读取或写入失败
+     */
+    public static int writeHosts(String[] args) {
+        File hostsFile = null;
+        File transactionFile = null;
+        for (int i = 0; i < args.length - 1; i++) {
+            if ("--hosts".equals(args[i])) {
+                hostsFile = new File(args[++i]);
+            } else if ("--transaction".equals(args[i])) {
+                transactionFile = new File(args[++i]);
+            }
+        }
         try {
-            // 创建临时脚本文件
-            File scriptFile = File.createTempFile("hosts_editor_", ".sh");
-            scriptFile.deleteOnExit();
-            scriptFile.setExecutable(true);
-
-            // 写入脚本内容
-            StringBuilder scriptContent = new StringBuilder();
-            scriptContent.append("#!/bin/bash\n");
-            scriptContent.append("grep -v \"").append(hostname).append("\" /etc/hosts > /tmp/hosts.tmp\n");
-            scriptContent.append("cp /tmp/hosts.tmp /etc/hosts\n");
-            scriptContent.append("rm /tmp/hosts.tmp\n");
-
-            Files.write(scriptFile.toPath(), scriptContent.toString().getBytes());
-
-            // 使用osascript请求管理员权限执行脚本
-            String[] cmd = {
-                    "osascript", "-e",
-                    "do shell script \"bash " + scriptFile.getAbsolutePath() + "\" with administrator privileges"
-            };
+            HostsTransaction transaction;
+            if (transactionFile != null) {
+                try (InputStream in = new BufferedInputStream(new FileInputStream(transactionFile))) {
+                    transaction = HostsTransaction.readFrom(in);
+                }
+            } else {
+                transaction = HostsTransaction.readFrom(new BufferedInputStream(System.in));
+            }
+            new HostsFileService(hostsFile).apply(transaction);
+            return WRITER_EXIT_SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            // 运行时异常也按写入失败返回，否则 JVM 的退出码 1 会被当成 sudo 拒绝而再用 pkexec 重试
+            log.error("写入hosts文件失败：{}", Throwables.getStackTraceAsString(e));
+            return WRITER_EXIT_FAILED;
+        }
+    }
 
-            Process process = Runtime.getRuntime().exec(cmd);
-            int exitCode = process.waitFor();
+    /**
+     * Windows：通过 UAC 以管理员权限运行写入进程并等待其退出
+     * @return 写入进程的退出码，权限请求被拒绝时为 powershell 的退出码
+     */
+    private static int runWriterWindows(File target, File transactionFile) throws IOException {
+        List<String> command = writerCommand(new File(System.getProperty("java.home"), "bin\\javaw.exe"), target, transactionFile);
+        StringBuilder arguments = new StringBuilder();
+        for (String argument : command.subList(1, command.size())) {
+            arguments.append(arguments.length() == 0 ? "" : " ").append('"').append(argument).append('"');
+        }
+        String[] cmd = {
+                "powershell.exe", "-NoProfile", "-Command",
+                // 用户拒绝 UAC 时 Start-Process 报错，没有进程对象
+                "try { $p = Start-Process -FilePath " + quotePowerShell(command.get(0))
+                        + " -ArgumentList " + quotePowerShell(arguments.toString())
+                        + " -Verb RunAs -WindowStyle Hidden -Wait -PassThru -ErrorAction Stop; exit $p.ExitCode } catch { exit 1 }"
+        };
+        return waitFor(Runtime.getRuntime().exec(cmd));
+    }
 
-            if (exitCode != 0) {
-                throw new IOException("管理员权限请求被拒绝或执行失败");
-            }
+    /**
+     * macOS：通过 osascript 以管理员权限运行写入进程并等待其退出
+     * @return 写入进程的退出码，权限请求被拒绝时为 osascript 的退出码
+     */
+    private static int runWriterMac(File target, File transactionFile) throws IOException {
+        StringBuilder command = new StringBuilder();
+        for (String argument : writerCommand(new File(System.getProperty("java.home"), "bin/java"), target, transactionFile)) {
+            command.append(command.length() == 0 ? "" : " ").append(quoteShell(argument));
+        }
+        // do shell script 在命令失败时只报告错误，用输出传回写入进程的退出码
+        command.append(" > /dev/null 2>&1; echo $?");
+        String[] cmd = {
+                "osascript", "-e",
+                "do shell script \"" + command.toString().replace("\\", "\\\\").replace("\"", "\\\"") + "\" with administrator privileges"
+        };
+        Process process = Runtime.getRuntime().exec(cmd);
+        String output;
+        try (InputStream in = process.getInputStream()) {
+            output = new String(readAll(in), StandardCharsets.UTF_8).trim();
+        }
+        int exitCode = waitFor(process);
+        if (exitCode != 0) {
+            return exitCode;
+        }
+        try {
+            return Integer.parseInt(output);
+        } catch (NumberFormatException e) {
+            throw new IOException("无法识别写入进程的退出码: " + output);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static int waitFor(Process process) throws IOException {
+        try {
+            return process.waitFor();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+            process.destroy();
             throw new IOException("操作被中断", e);
-        } catch (Exception e) {
-            throw new IOException("删除hosts记录失败: " + e.getMessage(), e);
         }
     }
 }
@@ -1,19 +1,21 @@
 package com.xyt.project.util;
 
-import com.xyt.project.HostsSubscribeApplication;
-
 import java.io.File;
 
 public class AppUtil {
     /**
-     * 获取程序安装目录路径
+     * 获取程序安装目录路径，可通过 -Dapp.dir=... 指定（如启动基准测试使用临时目录）
      *
      * @return 程序安装目录路径
      */
     public static String getAppDir() {
+        String appDir = System.getProperty("app.dir");
+        if (appDir != null && !appDir.isEmpty()) {
+            return appDir;
+        }
         try {
-            // 获取当前类的路径
-            String path = HostsSubscribeApplication.class.getProtectionDomain()
+            // 获取当前类的路径（不引用界面类，守护进程模式下不加载 AWT）
+            String path = AppUtil.class.getProtectionDomain()
                     .getCodeSource().getLocation().toURI().getPath();
 
             // 如果是jar文件，获取其所在目录
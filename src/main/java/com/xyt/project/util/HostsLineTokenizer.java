@@ -0,0 +1,110 @@
+package com.xyt.project.util;
+
+/**
+ * hosts 行分词器
+ * 按空白切分一行中 # 之前的内容：第一个词为IP地址，其余为主机名。
+ * 只记录词的起止位置，不使用正则、不 trim、不创建中间字符串；
+ * 实例可重复使用，非线程安全
+ */
+public final class HostsLineTokenizer {
+
+    private CharSequence line;
+
+    /**
+     * 有效内容的结束位置（# 的位置或行尾）
+     */
+    private int end;
+
+    /**
+     * # 的位置，没有注释时为 -1
+     */
+    private int commentStart;
+
+    private int position;
+
+    private int tokenStart;
+
+    private int tokenEnd;
+
+    /**
+     * 开始切分新的一行
+     *
+     * @param line 行内容
+     * @return 当前分词器
+     */
+    public HostsLineTokenizer reset(CharSequence line) {
+        this.line = line;
+        this.commentStart = indexOfComment(line);
+        this.end = commentStart >= 0 ? commentStart : line.length();
+        this.position = 0;
+        this.tokenStart = 0;
+        this.tokenEnd = 0;
+        return this;
+    }
+
+    /**
+     * 移动到下一个词
+     *
+     * @return 是否还有词
+     */
+    public boolean next() {
+        int i = position;
+        while (i < end && isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        if (i >= end) {
+            position = end;
+            return false;
+        }
+        int j = i + 1;
+        while (j < end && !isWhitespace(line.charAt(j))) {
+            j++;
+        }
+        tokenStart = i;
+        tokenEnd = j;
+        position = j;
+        return true;
+    }
+
+    public int tokenStart() {
+        return tokenStart;
+    }
+
+    public int tokenEnd() {
+        return tokenEnd;
+    }
+
+    /**
+     * 当前词的内容
+     *
+     * @return 当前词
+     */
+    public String token() {
+        return line.subSequence(tokenStart, tokenEnd).toString();
+    }
+
+    /**
+     * 行尾注释（不含 #）
+     *
+     * @return 注释，没有时为 null
+     */
+    public String comment() {
+        return commentStart >= 0 ? line.subSequence(commentStart + 1, line.length()).toString() : null;
+    }
+
+    private static int indexOfComment(CharSequence line) {
+        for (int i = 0, length = line.length(); i < length; i++) {
+            if (line.charAt(i) == '#') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 空格及控制字符都视为分隔符
+     */
+    private static boolean isWhitespace(char c) {
+        return c <= ' ';
+    }
+}
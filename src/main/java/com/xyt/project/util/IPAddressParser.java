@@ -0,0 +1,303 @@
+package com.xyt.project.util;
+
+/**
+ * IP地址解析器
+ * 手写的单次扫描解析，不使用正则、不切分字符串、不创建中间对象：
+ * IPv4 解析为 32 位整数，IPv6 解析为高低两个 64 位整数，支持 :: 压缩和末尾内嵌的IPv4（如 ::ffff:1.2.3.4）。
+ * 静态的 isValid* 方法只做校验；需要地址数值时使用实例的 parse 方法，实例可重复使用，非线程安全
+ */
+public final class IPAddressParser {
+
+    private boolean ipv4;
+
+    private int ipv4Value;
+
+    private long hi;
+
+    private long lo;
+
+    /**
+     * 解析IPv4或IPv6地址
+     *
+     * @param s 地址
+     * @return 是否为有效地址，无效时当前结果不变
+     */
+    public boolean parse(CharSequence s) {
+        return parse(s, 0, s.length());
+    }
+
+    /**
+     * 解析字符序列中 [start, end) 范围内的IPv4或IPv6地址
+     *
+     * @param s     字符序列
+     * @param start 起始位置
+     * @param end   结束位置（不含）
+     * @return 是否为有效地址，无效时当前结果不变
+     */
+    public boolean parse(CharSequence s, int start, int end) {
+        if (indexOf(s, start, end, ':') >= 0) {
+            return parseIPv6(s, start, end, this);
+        }
+        long value = parseIPv4(s, start, end);
+        if (value < 0) {
+            return false;
+        }
+        ipv4 = true;
+        ipv4Value = (int) value;
+        hi = 0;
+        lo = 0;
+        return true;
+    }
+
+    public boolean isIPv4() {
+        return ipv4;
+    }
+
+    /**
+     * IPv4 地址值，网络字节序（第一段在最高位）
+     *
+     * @return 地址值
+     */
+    public int ipv4() {
+        return ipv4Value;
+    }
+
+    /**
+     * IPv6 地址的高 64 位
+     *
+     * @return 高 64 位
+     */
+    public long hi() {
+        return hi;
+    }
+
+    /**
+     * IPv6 地址的低 64 位
+     *
+     * @return 低 64 位
+     */
+    public long lo() {
+        return lo;
+    }
+
+    /**
+     * 是否为有效的IPv4或IPv6地址
+     *
+     * @param s 地址
+     * @return 是否有效
+     */
+    public static boolean isValid(CharSequence s) {
+        return s != null && isValid(s, 0, s.length());
+    }
+
+    /**
+     * [start, end) 范围内是否为有效的IPv4或IPv6地址
+     *
+     * @param s     字符序列
+     * @param start 起始位置
+     * @param end   结束位置（不含）
+     * @return 是否有效
+     */
+    public static boolean isValid(CharSequence s, int start, int end) {
+        if (indexOf(s, start, end, ':') >= 0) {
+            return parseIPv6(s, start, end, null);
+        }
+        return parseIPv4(s, start, end) >= 0;
+    }
+
+    /**
+     * 是否为有效的IPv4地址（点分十进制，每段 1-3 位数字且不大于 255）
+     *
+     * @param s 地址
+     * @return 是否有效
+     */
+    public static boolean isValidIPv4(CharSequence s) {
+        return s != null && parseIPv4(s, 0, s.length()) >= 0;
+    }
+
+    /**
+     * 是否为有效的IPv6地址（RFC 4291 文本格式，不含区域标识 %）
+     *
+     * @param s 地址
+     * @return 是否有效
+     */
+    public static boolean isValidIPv6(CharSequence s) {
+        return s != null && parseIPv6(s, 0, s.length(), null);
+    }
+
+    /**
+     * 解析点分十进制IPv4地址
+     *
+     * @return 无符号 32 位地址值，无效时返回 -1
+     */
+    private static long parseIPv4(CharSequence s, int start, int end) {
+        long value = 0;
+        int parts = 0;
+        int i = start;
+        while (true) {
+            int part = 0;
+            int digits = 0;
+            while (i < end) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                part = part * 10 + (c - '0');
+                if (++digits > 3) {
+                    return -1;
+                }
+                i++;
+            }
+            if (digits == 0 || part > 255) {
+                return -1;
+            }
+            value = (value << 8) | part;
+            parts++;
+            if (i == end) {
+                return parts == 4 ? value : -1;
+            }
+            if (parts == 4 || s.charAt(i) != '.') {
+                return -1;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * 解析IPv6地址
+     * :: 之前的分组累积到 head，之后的分组累积到 tail，最后把 head 左移补齐被压缩的零分组再与 tail 合并
+     *
+     * @param out 解析结果，为 null 时只校验
+     */
+    private static boolean parseIPv6(CharSequence s, int start, int end, IPAddressParser out) {
+        if (end - start < 2) {
+            return false;
+        }
+        long headHi = 0;
+        long headLo = 0;
+        long tailHi = 0;
+        long tailLo = 0;
+        int headGroups = 0;
+        int tailGroups = 0;
+        boolean compressed = false;
+        int i = start;
+        if (s.charAt(i) == ':') {
+            // 只能以 :: 开头
+            if (s.charAt(i + 1) != ':') {
+                return false;
+            }
+            compressed = true;
+            i += 2;
+        }
+        while (i < end) {
+            int groupStart = i;
+            int group = 0;
+            while (i < end && i - groupStart < 5) {
+                int digit = hexDigit(s.charAt(i));
+                if (digit < 0) {
+                    break;
+                }
+                group = (group << 4) | digit;
+                i++;
+            }
+            int digits = i - groupStart;
+            if (i < end && s.charAt(i) == '.') {
+                // 末尾内嵌的IPv4，占两个分组
+                long v4 = parseIPv4(s, groupStart, end);
+                if (v4 < 0 || headGroups + tailGroups > 6) {
+                    return false;
+                }
+                if (compressed) {
+                    tailHi = (tailHi << 32) | (tailLo >>> 32);
+                    tailLo = (tailLo << 32) | v4;
+                    tailGroups += 2;
+                } else {
+                    headHi = (headHi << 32) | (headLo >>> 32);
+                    headLo = (headLo << 32) | v4;
+                    headGroups += 2;
+                }
+                i = end;
+                break;
+            }
+            if (digits == 0 || digits > 4 || headGroups + tailGroups == 8) {
+                return false;
+            }
+            if (compressed) {
+                tailHi = (tailHi << 16) | (tailLo >>> 48);
+                tailLo = (tailLo << 16) | group;
+                tailGroups++;
+            } else {
+                headHi = (headHi << 16) | (headLo >>> 48);
+                headLo = (headLo << 16) | group;
+                headGroups++;
+            }
+            if (i == end) {
+                break;
+            }
+            if (s.charAt(i) != ':') {
+                return false;
+            }
+            i++;
+            if (i < end && s.charAt(i) == ':') {
+                if (compressed) {
+                    return false;
+                }
+                compressed = true;
+                i++;
+            } else if (i == end) {
+                // 不能以单个 : 结尾
+                return false;
+            }
+        }
+        int groups = headGroups + tailGroups;
+        if (compressed ? groups > 7 : groups != 8) {
+            return false;
+        }
+        if (out != null) {
+            // head 左移被压缩的位数
+            int shift = 16 * (8 - headGroups);
+            long hi;
+            long lo;
+            if (shift == 0) {
+                hi = headHi;
+                lo = headLo;
+            } else if (shift >= 128) {
+                hi = 0;
+                lo = 0;
+            } else if (shift >= 64) {
+                hi = headLo << (shift - 64);
+                lo = 0;
+            } else {
+                hi = (headHi << shift) | (headLo >>> (64 - shift));
+                lo = headLo << shift;
+            }
+            out.ipv4 = false;
+            out.ipv4Value = 0;
+            out.hi = hi | tailHi;
+            out.lo = lo | tailLo;
+        }
+        return true;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static int indexOf(CharSequence s, int start, int end, char c) {
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,74 @@
+package com.xyt.project.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 启动耗时统计：记录从进入 main 到各个启动节点（首个窗口显示、首次IP检测完成）的时间并写入日志
+ * <p>
+ * 以 {@code -Dstartup.benchmark=true} 启动时，所有预期的节点完成后向标准输出打印一行
+ * {@code STARTUP first-window=123 first-ip-check=456}（毫秒）并退出，供启动基准测试解析，
+ * 也可配合 {@code -XX:DumpLoadedClassList} 生成 AppCDS 使用的类列表
+ */
+@Slf4j
+public final class StartupMetrics {
+
+    public static final String FIRST_WINDOW = "first-window";
+
+    public static final String FIRST_IP_CHECK = "first-ip-check";
+
+    private static final boolean BENCHMARK = Boolean.getBoolean("startup.benchmark");
+
+    private static long startNanos = System.nanoTime();
+
+    private static String[] expected = {};
+
+    private static final Map<String, Long> MILESTONES = new LinkedHashMap<>();
+
+    private StartupMetrics() {
+    }
+
+    /**
+     * 在 main 的第一行调用，记录起点和本次启动预期的节点
+     *
+     * @param milestones 预期的节点
+     */
+    public static synchronized void start(String... milestones) {
+        startNanos = System.nanoTime();
+        expected = milestones;
+    }
+
+    /**
+     * 记录节点，每个节点只记录第一次
+     *
+     * @param milestone 节点
+     */
+    public static void mark(String milestone) {
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        synchronized (StartupMetrics.class) {
+            if (MILESTONES.containsKey(milestone)) {
+                return;
+            }
+            MILESTONES.put(milestone, elapsedMillis);
+            log.info("启动耗时 {}：{}毫秒", milestone, elapsedMillis);
+            if (!BENCHMARK || expected.length == 0) {
+                return;
+            }
+            for (String name : expected) {
+                if (!MILESTONES.containsKey(name)) {
+                    return;
+                }
+            }
+            StringBuilder line = new StringBuilder("STARTUP");
+            for (Map.Entry<String, Long> entry : MILESTONES.entrySet()) {
+                line.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+            }
+            System.out.println(line);
+            System.out.flush();
+        }
+        // 在单独的线程上退出：关闭钩子会等待检测线程结束，不能在检测线程上同步等待
+        new Thread(() -> System.exit(0), "startup-benchmark-exit").start();
+    }
+}
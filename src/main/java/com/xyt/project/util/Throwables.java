@@ -0,0 +1,39 @@
+package com.xyt.project.util;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * 异常工具，替代 Guava 中用到的两个方法，避免为此引入整个 Guava
+ */
+public final class Throwables {
+
+    private Throwables() {
+    }
+
+    /**
+     * 异常的完整堆栈
+     *
+     * @param throwable 异常
+     * @return 堆栈文本
+     */
+    public static String getStackTraceAsString(Throwable throwable) {
+        StringWriter writer = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(writer));
+        return writer.toString();
+    }
+
+    /**
+     * 最内层的原因
+     *
+     * @param throwable 异常
+     * @return 没有更内层原因的异常
+     */
+    public static Throwable getRootCause(Throwable throwable) {
+        Throwable cause;
+        while ((cause = throwable.getCause()) != null && cause != throwable) {
+            throwable = cause;
+        }
+        return throwable;
+    }
+}
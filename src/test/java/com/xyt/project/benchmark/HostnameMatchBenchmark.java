@@ -0,0 +1,84 @@
+package com.xyt.project.benchmark;
+
+import com.xyt.project.model.HostEntry;
+import com.xyt.project.model.HostsFile;
+import com.xyt.project.util.HostsLineTokenizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * hosts 行解析基准测试：原来的 trim().split("\\s+") 与 HostsFile.parseLine 使用的分词器对比
+ * 主机名匹配走解析时建立的索引，不再逐行比较，因此解析就是实际运行的路径。
+ * 每次调用解析 10 万行，结果为单行耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HostnameMatchBenchmark {
+
+    private static final int LINES = 100_000;
+
+    private String[] lines;
+
+    private final HostsLineTokenizer tokenizer = new HostsLineTokenizer();
+
+    @Setup
+    public void setUp() {
+        lines = new String[LINES];
+        for (int i = 0; i < LINES; i++) {
+            if (i % 50 == 0) {
+                lines[i] = "# blocklist section " + i;
+            } else {
+                lines[i] = "0.0.0.0\tads" + i + ".tracker-network.example.com";
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public int splitParse() {
+        int entries = 0;
+        for (int i = 0; i < LINES; i++) {
+            if (splitParseLine(lines[i], i) != null) {
+                entries++;
+            }
+        }
+        return entries;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public int tokenizerParse() {
+        int entries = 0;
+        for (int i = 0; i < LINES; i++) {
+            if (HostsFile.parseLine(tokenizer, lines[i], i) != null) {
+                entries++;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 修改前 HostsFile.parseLine 的实现
+     */
+    private static HostEntry splitParseLine(String line, int lineNumber) {
+        int commentIndex = line.indexOf('#');
+        String body = commentIndex >= 0 ? line.substring(0, commentIndex) : line;
+        String[] parts = body.trim().split("\\s+");
+        if (parts.length < 2) {
+            return null;
+        }
+        List<String> aliases = new ArrayList<>(parts.length - 2);
+        for (int i = 2; i < parts.length; i++) {
+            aliases.add(parts[i]);
+        }
+        String comment = commentIndex >= 0 ? line.substring(commentIndex + 1) : null;
+        return new HostEntry(parts[0], parts[1], aliases, comment, lineNumber);
+    }
+}
@@ -0,0 +1,100 @@
+package com.xyt.project.benchmark;
+
+import com.xyt.project.model.HostnameTable;
+import com.xyt.project.model.IPAddress;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 主机名表基准测试：堆外开放寻址表与堆内 HashMap&lt;String, List&lt;String&gt;&gt; 对比
+ * 100 万个订阅风格的主机名，全部指向 0.0.0.0；每次调用查找 1 万个主机名（一半命中），结果为单次查找耗时。
+ * 建表后的内存占用在 Setup 中打印
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class HostnameTableBenchmark {
+
+    private static final int ENTRIES = 1_000_000;
+
+    private static final int LOOKUPS = 10_000;
+
+    private HostnameTable table;
+
+    private Map<String, List<String>> map;
+
+    private String[] queries;
+
+    @Setup
+    public void setUp() {
+        long before = usedHeap();
+        map = new HashMap<>();
+        for (int i = 0; i < ENTRIES; i++) {
+            map.put(hostname(i).toLowerCase(Locale.ROOT), new ArrayList<>(Collections.singletonList("0.0.0.0")));
+        }
+        long mapBytes = usedHeap() - before;
+
+        before = usedHeap();
+        IPAddress block = IPAddress.parse("0.0.0.0");
+        table = new HostnameTable(ENTRIES);
+        for (int i = 0; i < ENTRIES; i++) {
+            table.put(hostname(i), block);
+        }
+        long tableHeapBytes = usedHeap() - before;
+
+        System.out.printf("%nHashMap: %d bytes/entry (heap); HostnameTable: %d bytes/entry used, %d allocated (off-heap), %d bytes heap total%n",
+                mapBytes / ENTRIES, table.usedMemory() / ENTRIES, table.memoryUsage() / ENTRIES, tableHeapBytes);
+
+        queries = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            // 偶数命中，奇数不命中
+            queries[i] = i % 2 == 0 ? hostname(i * 97 % ENTRIES) : "miss" + i + ".example.net";
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int hashMap() {
+        int found = 0;
+        for (String query : queries) {
+            if (map.get(query.toLowerCase(Locale.ROOT)) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int hostnameTable() {
+        int found = 0;
+        for (String query : queries) {
+            if (table.contains(query)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static String hostname(int i) {
+        return "ads" + i + ".tracker-" + (i % 1000) + ".example.com";
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,107 @@
+package com.xyt.project.benchmark;
+
+import com.xyt.project.util.IPAddressParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * IP地址校验基准测试：原来的正则/split 校验与手写解析器对比
+ * 每次调用校验 10 万个地址（IPv4、完整及压缩的IPv6混合），结果为单个地址耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IPAddressParseBenchmark {
+
+    private static final int ADDRESSES = 100_000;
+
+    /**
+     * 原 IPv6Address 中的正则
+     */
+    private static final Pattern IPV6_PATTERN = Pattern.compile("^([0-9a-fA-F]{1,4}:){7}[0-9a-fA-F]{1,4}$|" + "^::([0-9a-fA-F]{1,4}:){0,6}[0-9a-fA-F]{1,4}$|" + "^[0-9a-fA-F]{1,4}::([0-9a-fA-F]{1,4}:){0,5}[0-9a-fA-F]{1,4}$|" + "^([0-9a-fA-F]{1,4}:){2}:([0-9a-fA-F]{1,4}:){0,4}[0-9a-fA-F]{1,4}$|" + "^([0-9a-fA-F]{1,4}:){3}:([0-9a-fA-F]{1,4}:){0,3}[0-9a-fA-F]{1,4}$|" + "^([0-9a-fA-F]{1,4}:){4}:([0-9a-fA-F]{1,4}:){0,2}[0-9a-fA-F]{1,4}$|" + "^([0-9a-fA-F]{1,4}:){5}:([0-9a-fA-F]{1,4}:){0,1}[0-9a-fA-F]{1,4}$|" + "^([0-9a-fA-F]{1,4}:){6}:[0-9a-fA-F]{1,4}$");
+
+    private String[] addresses;
+
+    private IPAddressParser parser;
+
+    @Setup
+    public void setUp() {
+        addresses = new String[ADDRESSES];
+        for (int i = 0; i < ADDRESSES; i++) {
+            switch (i % 3) {
+                case 0:
+                    addresses[i] = "10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+                    break;
+                case 1:
+                    addresses[i] = "2408:8207:1850:" + Integer.toHexString(i & 0xffff) + ":1c2d:3e4f:5a6b:" + Integer.toHexString(i >> 4);
+                    break;
+                default:
+                    addresses[i] = "2408:8207::" + Integer.toHexString(i & 0xffff);
+                    break;
+            }
+        }
+        parser = new IPAddressParser();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ADDRESSES)
+    public int regex() {
+        int valid = 0;
+        for (String address : addresses) {
+            if (address.contains(".") ? isValidIPv4BySplit(address) : IPV6_PATTERN.matcher(address).matches()) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ADDRESSES)
+    public int parser() {
+        int valid = 0;
+        for (String address : addresses) {
+            if (IPAddressParser.isValid(address)) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ADDRESSES)
+    public long parseToValue() {
+        long sum = 0;
+        for (String address : addresses) {
+            if (parser.parse(address)) {
+                sum += parser.isIPv4() ? parser.ipv4() : parser.lo();
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 原 isValidIPv4Address 的实现
+     */
+    private static boolean isValidIPv4BySplit(String ip) {
+        String[] parts = ip.split("\\.");
+        if (parts.length != 4) {
+            return false;
+        }
+        for (String part : parts) {
+            try {
+                int num = Integer.parseInt(part);
+                if (num < 0 || num > 255) {
+                    return false;
+                }
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,191 @@
+package com.xyt.project.benchmark;
+
+import com.xyt.project.Launcher;
+
+import java.awt.GraphicsEnvironment;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * 启动基准测试：在新的 JVM 中反复启动程序，统计首个窗口显示和首次IP检测完成的耗时（中位数）
+ * 运行：mvn -Pstartup test-compile exec:exec
+ * <p>
+ * 守护进程模式总是测量；有图形环境时同时测量界面模式。
+ * JDK 11 及以上还会先用 -XX:DumpLoadedClassList 记录启动加载的类，生成 AppCDS 归档后再测一遍，
+ * 类列表和归档保存在 target/startup 下。AppCDS 只归档 jar 中的类，因此子进程使用打包成 jar 的 target/classes。
+ * 这里的归档只用于测量；部署时由 linux/istoreos/deploy-daemon.sh 在首次运行退出时生成守护进程的归档
+ */
+public class StartupBenchmark {
+
+    private static final int RUNS = Integer.getInteger("startup.runs", 5);
+
+    private static final File OUTPUT_DIR = new File("target/startup").getAbsoluteFile();
+
+    private static final List<String> JVM_OPTIONS = Arrays.asList("-Xms8m", "-Xmx64m", "-XX:+UseSerialGC", "-XX:TieredStopAtLevel=1");
+
+    private static String classPath;
+
+    public static void main(String[] args) throws Exception {
+        if (!OUTPUT_DIR.isDirectory() && !OUTPUT_DIR.mkdirs()) {
+            throw new IOException("无法创建目录: " + OUTPUT_DIR);
+        }
+        classPath = packageClassPath();
+        boolean cds = !System.getProperty("java.specification.version").startsWith("1.");
+        Map<String, List<String>> modes = new LinkedHashMap<>();
+        modes.put("daemon", Collections.singletonList("--daemon"));
+        if (!GraphicsEnvironment.isHeadless()) {
+            modes.put("gui", Collections.emptyList());
+        }
+        for (Map.Entry<String, List<String>> mode : modes.entrySet()) {
+            report(mode.getKey(), measure(mode.getValue(), Collections.emptyList()));
+            if (cds) {
+                report(mode.getKey() + "+cds", measure(mode.getValue(), dumpArchive(mode.getKey(), mode.getValue())));
+            }
+        }
+    }
+
+    /**
+     * 生成 AppCDS 归档，返回使用归档的 JVM 参数
+     */
+    private static List<String> dumpArchive(String name, List<String> appArgs) throws Exception {
+        File classList = new File(OUTPUT_DIR, name + ".classlist");
+        File archive = new File(OUTPUT_DIR, name + ".jsa");
+        run(Collections.singletonList("-XX:DumpLoadedClassList=" + classList.getPath()), appArgs);
+        List<String> dump = new ArrayList<>(Arrays.asList(javaCommand(), "-Xshare:dump",
+                "-XX:SharedClassListFile=" + classList.getPath(), "-XX:SharedArchiveFile=" + archive.getPath(),
+                "-cp", classPath));
+        Process process = new ProcessBuilder(dump).redirectErrorStream(true).redirectOutput(new File(OUTPUT_DIR, name + ".dump.log")).start();
+        if (process.waitFor() != 0) {
+            throw new IOException("生成 AppCDS 归档失败，见 " + name + ".dump.log");
+        }
+        return Arrays.asList("-Xshare:auto", "-XX:SharedArchiveFile=" + archive.getPath());
+    }
+
+    private static Map<String, List<Long>> measure(List<String> appArgs, List<String> extraJvmOptions) throws Exception {
+        Map<String, List<Long>> samples = new TreeMap<>();
+        for (int i = 0; i < RUNS; i++) {
+            for (Map.Entry<String, Long> entry : run(extraJvmOptions, appArgs).entrySet()) {
+                samples.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(entry.getValue());
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * 启动一次程序，解析其打印的 STARTUP 行
+     */
+    private static Map<String, Long> run(List<String> extraJvmOptions, List<String> appArgs) throws Exception {
+        File appDir = Files.createTempDirectory("startup-benchmark").toFile();
+        List<String> command = new ArrayList<>();
+        command.add(javaCommand());
+        command.addAll(JVM_OPTIONS);
+        command.addAll(extraJvmOptions);
+        command.add("-Dstartup.benchmark=true");
+        command.add("-Dapp.dir=" + appDir.getPath());
+        command.add("-cp");
+        command.add(classPath);
+        command.add(Launcher.class.getName());
+        command.addAll(appArgs);
+        Process process = new ProcessBuilder(command).directory(appDir).redirectErrorStream(true).start();
+        Map<String, Long> result = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith("STARTUP ")) {
+                    continue;
+                }
+                for (String field : line.substring("STARTUP ".length()).split(" ")) {
+                    int eq = field.indexOf('=');
+                    result.put(field.substring(0, eq), Long.parseLong(field.substring(eq + 1)));
+                }
+            }
+        }
+        process.waitFor();
+        deleteRecursively(appDir);
+        if (result.isEmpty()) {
+            throw new IOException("程序未输出启动耗时: " + command);
+        }
+        return result;
+    }
+
+    private static void report(String mode, Map<String, List<Long>> samples) {
+        StringBuilder line = new StringBuilder(String.format("%-12s", mode));
+        for (Map.Entry<String, List<Long>> entry : samples.entrySet()) {
+            List<Long> values = entry.getValue();
+            Collections.sort(values);
+            line.append(String.format("  %s 中位数 %d ms（%d..%d）", entry.getKey(),
+                    values.get(values.size() / 2), values.get(0), values.get(values.size() - 1)));
+        }
+        System.out.println(line);
+    }
+
+    /**
+     * 把本进程类路径中的目录打包成 jar，依赖的 jar 保持不变；测试类和测试依赖不需要
+     */
+    private static String packageClassPath() throws IOException {
+        List<String> entries = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            File file = new File(entry);
+            if (file.isDirectory()) {
+                if (file.getName().equals("classes")) {
+                    File jar = new File(OUTPUT_DIR, "app.jar");
+                    writeJar(file, jar);
+                    entries.add(jar.getPath());
+                }
+            } else if (!isTestDependency(file.getName())) {
+                entries.add(entry);
+            }
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static boolean isTestDependency(String name) {
+        return name.startsWith("junit") || name.startsWith("hamcrest") || name.startsWith("jmh") || name.startsWith("commons-math3")
+                || name.startsWith("jopt-simple");
+    }
+
+    private static void writeJar(File dir, File jar) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            Path root = dir.toPath();
+            List<Path> files = new ArrayList<>();
+            try (Stream<Path> walk = Files.walk(root)) {
+                walk.filter(Files::isRegularFile).forEach(files::add);
+            }
+            for (Path file : files) {
+                out.putNextEntry(new JarEntry(root.relativize(file).toString().replace(File.separatorChar, '/')));
+                Files.copy(file, out);
+                out.closeEntry();
+            }
+        }
+    }
+
+    private static String javaCommand() {
+        return new File(System.getProperty("java.home"), "bin/java").getPath();
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
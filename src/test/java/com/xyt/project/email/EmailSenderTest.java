@@ -0,0 +1,153 @@
+package com.xyt.project.email;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class EmailSenderTest {
+
+    private FakeSmtpServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new FakeSmtpServer();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void reusesOneConnectionForBurst() throws Exception {
+        try (EmailSender sender = new EmailSender("127.0.0.1", server.getPort(), "me@example.com", "secret")) {
+            for (int i = 0; i < 3; i++) {
+                sender.sendSimpleEmail("通知", "me@example.com", "主题" + i, "内容" + i);
+            }
+        }
+        assertEquals(1, server.connections.get());
+        assertEquals(3, server.messages.get());
+    }
+
+    @Test
+    public void reconnectsWhenServerDroppedConnection() throws Exception {
+        server.closeAfterMessage = true;
+        try (EmailSender sender = new EmailSender("127.0.0.1", server.getPort(), "me@example.com", "secret")) {
+            sender.sendSimpleEmail("通知", "me@example.com", "主题", "内容");
+            sender.sendSimpleEmail("通知", "me@example.com", "主题", "内容");
+        }
+        assertEquals(2, server.connections.get());
+        assertEquals(2, server.messages.get());
+    }
+
+    @Test
+    public void closesIdleConnectionWithoutWaitingForNextSend() throws Exception {
+        try (EmailSender sender = new EmailSender("127.0.0.1", server.getPort(), "me@example.com", "secret", 200)) {
+            sender.sendSimpleEmail("通知", "me@example.com", "主题", "内容");
+            long deadline = System.currentTimeMillis() + 5000;
+            while (server.quits.get() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals("空闲到期后主动发送 QUIT", 1, server.quits.get());
+            sender.sendSimpleEmail("通知", "me@example.com", "主题", "内容");
+        }
+        assertEquals(2, server.connections.get());
+        assertEquals(2, server.messages.get());
+    }
+
+    /**
+     * 只实现发送流程所需命令的 SMTP 服务器
+     */
+    private static class FakeSmtpServer implements AutoCloseable {
+
+        private final ServerSocket serverSocket = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+
+        private final AtomicInteger connections = new AtomicInteger();
+
+        private final AtomicInteger messages = new AtomicInteger();
+
+        private final AtomicInteger quits = new AtomicInteger();
+
+        private volatile boolean closeAfterMessage;
+
+        FakeSmtpServer() throws IOException {
+            Thread thread = new Thread(this::acceptLoop, "fake-smtp");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try (Socket socket = serverSocket.accept()) {
+                    connections.incrementAndGet();
+                    serve(socket);
+                } catch (IOException e) {
+                    // 服务器关闭或客户端断开
+                }
+            }
+        }
+
+        private void serve(Socket socket) throws IOException {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+            reply(out, "220 localhost ESMTP");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase();
+                if (command.startsWith("EHLO")) {
+                    reply(out, "250-localhost\r\n250 AUTH PLAIN");
+                } else if (command.equals("AUTH PLAIN")) {
+                    reply(out, "334 ");
+                    in.readLine();
+                    reply(out, "235 ok");
+                } else if (command.startsWith("AUTH")) {
+                    reply(out, "235 ok");
+                } else if (command.equals("DATA")) {
+                    reply(out, "354 go");
+                    while ((line = in.readLine()) != null && !line.equals(".")) {
+                        // 丢弃邮件内容
+                    }
+                    messages.incrementAndGet();
+                    reply(out, "250 queued");
+                    if (closeAfterMessage) {
+                        return;
+                    }
+                } else if (command.equals("QUIT")) {
+                    quits.incrementAndGet();
+                    reply(out, "221 bye");
+                    return;
+                } else {
+                    // HELO / MAIL / RCPT / NOOP / RSET
+                    reply(out, "250 ok");
+                }
+            }
+        }
+
+        private static void reply(Writer out, String response) throws IOException {
+            out.write(response + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.xyt.project.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HostnameTableTest {
+
+    private static final IPAddress BLOCK_V4 = IPAddress.parse("0.0.0.0");
+
+    private static final IPAddress BLOCK_V6 = IPAddress.parse("::");
+
+    @Test
+    public void supportsUpsertDeleteAndGrowth() {
+        HostnameTable table = new HostnameTable(4);
+        for (int i = 0; i < 50_000; i++) {
+            assertTrue(table.put("ads" + i + ".example.com", i % 2 == 0 ? BLOCK_V4 : BLOCK_V6));
+        }
+        assertEquals(50_000, table.size());
+        assertEquals(BLOCK_V6, table.get("ADS1.Example.com"));
+
+        assertFalse(table.put("ads1.example.com", IPAddress.parse("10.0.0.1")));
+        assertEquals("10.0.0.1", table.get("ads1.example.com").toString());
+        assertFalse(table.putIfAbsent("ads1.example.com", BLOCK_V4));
+        assertEquals("10.0.0.1", table.get("ads1.example.com").toString());
+
+        // 删除后再插入，并触发压缩
+        for (int i = 0; i < 50_000; i += 2) {
+            assertTrue(table.remove("ads" + i + ".example.com"));
+        }
+        assertFalse(table.remove("ads0.example.com"));
+        assertNull(table.get("ads0.example.com"));
+        for (int i = 0; i < 50_000; i++) {
+            table.putIfAbsent("new" + i + ".example.com", BLOCK_V4);
+        }
+        assertEquals(75_000, table.size());
+        assertTrue(table.contains("ads49999.example.com"));
+        assertTrue(table.contains("new0.example.com"));
+        assertEquals(BLOCK_V6, table.get("ads3.example.com"));
+    }
+
+    @Test
+    public void iteratesInInsertionOrder() {
+        HostnameTable table = new HostnameTable();
+        table.put("b.example.com", BLOCK_V4);
+        table.put("a.example.com", BLOCK_V6);
+        table.put("Münich.example", BLOCK_V4);
+        table.put("c.example.com", BLOCK_V4);
+        table.remove("a.example.com");
+        // 同一地址族原位覆盖，不同地址族移到末尾
+        table.put("c.example.com", IPAddress.parse("10.0.0.3"));
+        table.put("b.example.com", BLOCK_V6);
+
+        List<String> lines = new ArrayList<>();
+        table.forEach((hostname, address) -> lines.add(address + " " + hostname));
+        assertEquals("[0.0.0.0 münich.example, 10.0.0.3 c.example.com, :: b.example.com]", lines.toString());
+        assertEquals(3, table.size());
+    }
+
+    @Test
+    public void copyIsIndependentAndLongNamesDoNotFit() {
+        HostnameTable table = new HostnameTable();
+        table.put("a.example.com", BLOCK_V4);
+        HostnameTable copy = table.copy();
+        copy.remove("a.example.com");
+        copy.put("b.example.com", BLOCK_V6);
+        assertTrue(table.contains("a.example.com"));
+        assertFalse(table.contains("b.example.com"));
+        assertEquals(1, copy.size());
+
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            name.append('中');
+        }
+        assertFalse(HostnameTable.fits(name));
+        assertTrue(HostnameTable.fits(name.substring(0, 85)));
+    }
+}
@@ -0,0 +1,60 @@
+package com.xyt.project.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IPDiffTest {
+
+    @Test
+    public void reportsAddedRemovedAndChanged() {
+        Map<IPAddress, IPAddress> before = new LinkedHashMap<>();
+        put(before, address("192.168.1.2", "eth0", IPAddress.Stability.NONE));
+        put(before, address("2408::1", "eth0", IPAddress.Stability.STABLE));
+        put(before, address("2408::2", "eth0", IPAddress.Stability.TEMPORARY));
+
+        IPDiff diff = IPDiff.between(before, Arrays.asList(
+                address("192.168.1.2", "eth0", IPAddress.Stability.NONE),
+                // 旧快照中的非规范写法按数值比较
+                address("2408:0:0::0001", "eth1", IPAddress.Stability.STABLE),
+                address("2408::3", "eth0", IPAddress.Stability.TEMPORARY)));
+
+        assertEquals("2408::3", diff.getAdded().get(0).toString());
+        assertEquals("2408::2", diff.getRemoved().get(0).toString());
+        assertEquals("eth1", diff.getChanged().get(0).getInterfaceName());
+        assertEquals(3, diff.getCurrent().size());
+
+        assertTrue(IPDiff.between(diff.getCurrent(), new ArrayList<>(diff.getCurrent().values())).isEmpty());
+    }
+
+    @Test
+    public void convertsToAndFromDTO() {
+        IPInfoDTO dto = new IPInfoDTO("eth0", "IPv6", "(临时地址)", "2408:8207:0:0:1:0:0:1");
+        IPAddress address = IPAddress.fromDTO(dto);
+        assertEquals(IPAddress.Stability.TEMPORARY, address.getStability());
+
+        IPInfoDTO converted = address.toDTO();
+        assertEquals("eth0", converted.getNetworkName());
+        assertEquals("IPv6", converted.getIpType());
+        assertEquals("(临时地址)", converted.getAddressType());
+        assertEquals("2408:8207::1:0:0:1", converted.getIpAddress());
+
+        assertEquals("::ffff:10.0.0.1", IPAddress.parse("::FFFF:0a00:0001").toString());
+        assertEquals("1:0:2::", IPAddress.parse("1:0:2:0:0:0:0:0").toString());
+        assertEquals("10.0.0.1", IPAddress.of(new byte[]{10, 0, 0, 1}).toString());
+    }
+
+    private static IPAddress address(String text, String interfaceName, IPAddress.Stability stability) {
+        return IPAddress.parse(text).withInterface(interfaceName, stability);
+    }
+
+    private static void put(Map<IPAddress, IPAddress> snapshot, IPAddress address) {
+        snapshot.put(address, address);
+    }
+}
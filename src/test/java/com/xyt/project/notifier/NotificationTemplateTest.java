@@ -0,0 +1,57 @@
+package com.xyt.project.notifier;
+
+import com.xyt.project.model.IPAddress;
+import com.xyt.project.model.IPDiff;
+import com.xyt.project.model.IPInfoDTO;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class NotificationTemplateTest {
+
+    @Test
+    public void rendersDefaultEmailFormat() {
+        IPInfoDTO first = new IPInfoDTO("eth0", "IPv6", "临时", "2001:db8::1");
+        IPInfoDTO second = new IPInfoDTO("eth1", "IPv6", "稳定", "2001:db8::2");
+        assertEquals("网卡：eth0临时：2001:db8::1 nas\n网卡：eth1稳定：2001:db8::2 nas",
+                NotificationTemplates.DEFAULT.body("nas", Arrays.asList(first, second)));
+        assertEquals("", NotificationTemplates.DEFAULT.body("nas", Collections.emptyList()));
+    }
+
+    @Test
+    public void rendersHostsLinesWithRemovedAddressesLast() {
+        IPAddress a = IPAddress.parse("2001:db8::a");
+        IPAddress b = IPAddress.parse("2001:db8::b");
+        Map<IPAddress, IPAddress> previous = new LinkedHashMap<>();
+        previous.put(a, a);
+        IPDiff diff = IPDiff.between(previous, Collections.singletonList(b));
+
+        Properties props = new Properties();
+        props.setProperty("udp.format", "hosts");
+        NotificationTemplates templates = NotificationTemplates.load(props, "udp", null);
+        assertEquals("2001:db8::b\tnas\n# 已移除 2001:db8::a\tnas", templates.body("nas", diff));
+        assertNull(NotificationTemplates.load(props, "webhook", null));
+    }
+
+    @Test
+    public void overridesSingleTemplateAndEscapesBraces() {
+        Properties props = new Properties();
+        props.setProperty("email.subject", "{{{device}}} 地址变更");
+        NotificationTemplates templates = NotificationTemplates.load(props, "email", NotificationTemplates.DEFAULT);
+        assertEquals("{nas} 地址变更", templates.subject("nas"));
+        assertEquals(NotificationTemplates.DEFAULT.body("nas", Collections.singletonList(
+                new IPInfoDTO("eth0", "IPv6", "临时", "::1"))),
+                templates.body("nas", Collections.singletonList(new IPInfoDTO("eth0", "IPv6", "临时", "::1"))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownVariable() {
+        NotificationTemplate.compile("{address} {device}");
+    }
+}
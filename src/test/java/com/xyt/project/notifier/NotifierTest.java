@@ -0,0 +1,151 @@
+package com.xyt.project.notifier;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.sun.net.httpserver.HttpServer;
+import com.xyt.project.model.IPAddress;
+import com.xyt.project.model.IPDiff;
+import com.xyt.project.service.NotificationOutbox;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class NotifierTest {
+
+    private static final IPAddress A = IPAddress.parse("2001:db8::a");
+
+    private static final IPAddress B = IPAddress.parse("2001:db8::b");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void fansOutToWebhookAndUdpWithoutWaitingForSlowSink() throws Exception {
+        BlockingQueue<String> requests = new LinkedBlockingQueue<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/ip", exchange -> {
+            requests.add(read(exchange.getRequestBody()));
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        File dir = folder.getRoot();
+        try (DatagramSocket receiver = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+             NotifierGroup group = new NotifierGroup()) {
+            receiver.setSoTimeout(5_000);
+            URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/ip");
+            group.add(new NotificationOutbox(dir, "webhook.log", new WebhookNotifier(url, 2_000, null), 0))
+                    .add(new NotificationOutbox(dir, "udp.log",
+                            new UdpNotifier(new InetSocketAddress(InetAddress.getLoopbackAddress(), receiver.getLocalPort()), null), 0))
+                    .add(new NotificationOutbox(dir, "slow.log", (device, diff) -> Thread.sleep(60_000), 0));
+
+            long start = System.nanoTime();
+            group.notify("nas", diff(A, B));
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            assertTrue("只写入发件箱，不等待发送: " + elapsedMillis, elapsedMillis < 5_000);
+
+            String request = requests.poll(5, TimeUnit.SECONDS);
+            assertNotNull(request);
+            JSONObject webhook = JSONUtil.parseObj(request);
+            assertEquals("nas", webhook.getStr("device"));
+            assertEquals("2001:db8::b", webhook.getJSONArray("added").getJSONObject(0).getStr("ipAddress"));
+            assertEquals("2001:db8::a", webhook.getJSONArray("removed").getJSONObject(0).getStr("ipAddress"));
+
+            DatagramPacket packet = new DatagramPacket(new byte[4096], 4096);
+            receiver.receive(packet);
+            JSONObject udp = JSONUtil.parseObj(new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8));
+            assertEquals(webhook, udp);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void reportsSinkThatCouldNotAcceptNotification() throws Exception {
+        List<IPDiff> delivered = new CopyOnWriteArrayList<>();
+        try (NotifierGroup group = new NotifierGroup()) {
+            group.add(new Notifier() {
+                @Override
+                public void notify(String device, IPDiff diff) throws IOException {
+                    throw new IOException("disk full");
+                }
+
+                @Override
+                public String name() {
+                    return "broken";
+                }
+            }).add((device, diff) -> delivered.add(diff));
+            try {
+                group.notify("nas", diff(A, B));
+                fail("有通知方式失败时应抛出异常，调用方不推进地址基准");
+            } catch (IOException expected) {
+                assertTrue(expected.getMessage().contains("broken"));
+                assertEquals("disk full", expected.getSuppressed()[0].getMessage());
+            }
+            assertEquals("其它方式仍然收到通知", 1, delivered.size());
+        }
+    }
+
+    @Test
+    public void webhookErrorStatusFails() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/ip", exchange -> {
+            read(exchange.getRequestBody());
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/ip");
+            new WebhookNotifier(url, 2_000, null).notify("nas", diff(A, B));
+            fail("非 2xx 响应应视为失败");
+        } catch (IOException expected) {
+            // 预期
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void parsesHostAndPort() {
+        assertEquals(5300, NotifierConfig.parseAddress("127.0.0.1:5300").getPort());
+        assertTrue(NotifierConfig.parseAddress("[::1]:5300").getAddress().isLoopbackAddress());
+    }
+
+    private static IPDiff diff(IPAddress before, IPAddress after) {
+        Map<IPAddress, IPAddress> previous = new LinkedHashMap<>();
+        previous.put(before, before);
+        return IPDiff.between(previous, Collections.singletonList(after));
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
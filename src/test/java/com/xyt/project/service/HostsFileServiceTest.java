@@ -0,0 +1,340 @@
+package com.xyt.project.service;
+
+import com.xyt.project.model.HostEntry;
+import com.xyt.project.model.HostsDiff;
+import com.xyt.project.model.IPAddress;
+import com.xyt.project.util.AdminPermissionHelper;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class HostsFileServiceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File hosts;
+
+    private HostsFileService hostsFileService;
+
+    @Before
+    public void setUp() throws IOException {
+        hosts = folder.newFile("hosts");
+        write("# comment",
+                "127.0.0.1\tlocalhost",
+                "",
+                "10.0.0.1 example.com www.example.com # web",
+                "10.0.0.2 foo.example.com");
+        hostsFileService = new HostsFileService(hosts);
+    }
+
+    @Test
+    public void findUsesHostnameIndex() throws IOException {
+        List<HostEntry> entries = hostsFileService.findHostEntries("WWW.example.com");
+        assertEquals(1, entries.size());
+        HostEntry entry = entries.get(0);
+        assertEquals("10.0.0.1", entry.getIp());
+        assertEquals("example.com", entry.getHostname());
+        assertEquals(Collections.singletonList("www.example.com"), entry.getAliases());
+        assertEquals(" web", entry.getComment());
+        assertEquals(3, entry.getLineNumber());
+    }
+
+    @Test
+    public void updateReplacesOnlyExactHostname() throws IOException {
+        hostsFileService.updateHostsFile("example.com", Arrays.asList("::1", "10.0.0.9"));
+
+        assertEquals(Arrays.asList("# comment",
+                "127.0.0.1\tlocalhost",
+                "",
+                "10.0.0.1\twww.example.com # web",
+                "10.0.0.2 foo.example.com",
+                "::1\texample.com",
+                "10.0.0.9\texample.com"), read());
+        assertTrue(new File(hosts.getPath() + ".bak").exists());
+    }
+
+    @Test
+    public void deleteRemovesWholeLineWhenNoNameLeft() throws IOException {
+        assertTrue(hostsFileService.deleteHostnameFromHosts("foo.example.com"));
+        assertFalse(hostsFileService.deleteHostnameFromHosts("missing.example.com"));
+
+        assertEquals(Arrays.asList("# comment",
+                "127.0.0.1\tlocalhost",
+                "",
+                "10.0.0.1 example.com www.example.com # web"), read());
+    }
+
+    @Test
+    public void transactionAppliesAllMutationsInOneRewrite() throws IOException {
+        HostsTransaction transaction = new HostsTransaction()
+                .upsert("a.example.com", Collections.singletonList("10.0.0.3"))
+                .upsert("foo.example.com", Collections.singletonList("10.0.0.4"))
+                .delete("a.example.com")
+                .delete("localhost");
+        assertTrue(hostsFileService.apply(transaction));
+
+        assertEquals(Arrays.asList("# comment",
+                "",
+                "10.0.0.1 example.com www.example.com # web",
+                "10.0.0.4\tfoo.example.com"), read());
+        assertFalse(hostsFileService.apply(new HostsTransaction().delete("missing.example.com")));
+    }
+
+    @Test
+    public void subscriptionSectionIsKeptInHostnameTable() throws IOException {
+        List<HostEntry> entries = Arrays.asList(
+                new HostEntry(IPAddress.parse("0.0.0.0"), "ads.example.com", null, null, -1),
+                new HostEntry(IPAddress.parse("0.0.0.0"), "tracker.example.com", null, null, -1),
+                new HostEntry(IPAddress.parse("::"), "v6.example.com", null, null, -1));
+        assertTrue(hostsFileService.apply(new HostsTransaction().replaceSection("ads", entries)));
+        assertFalse(hostsFileService.apply(new HostsTransaction().replaceSection("ads", entries)));
+        List<String> original = Arrays.asList("# comment",
+                "127.0.0.1\tlocalhost",
+                "",
+                "10.0.0.1 example.com www.example.com # web",
+                "10.0.0.2 foo.example.com");
+        List<String> expected = new ArrayList<>(original);
+        expected.addAll(Arrays.asList("# hosts-subscribe:begin ads",
+                "0.0.0.0\tads.example.com",
+                "0.0.0.0\ttracker.example.com",
+                "::\tv6.example.com",
+                "# hosts-subscribe:end ads"));
+        assertEquals(expected, read());
+        assertEquals("0.0.0.0", hostsFileService.findHostEntries("ADS.example.com").get(0).getIp());
+
+        // 重新从磁盘解析：区块读入主机名表，单条变更可以覆盖或删除订阅中的主机名
+        HostsFileService reopened = new HostsFileService(hosts);
+        assertEquals(3, reopened.getSection("ads").size());
+        assertTrue(reopened.apply(new HostsTransaction()
+                .upsert("ads.example.com", Collections.singletonList("10.0.0.7"))
+                .delete("tracker.example.com")));
+        expected = new ArrayList<>(original);
+        expected.addAll(Arrays.asList("# hosts-subscribe:begin ads",
+                "::\tv6.example.com",
+                "# hosts-subscribe:end ads",
+                "10.0.0.7\tads.example.com"));
+        assertEquals(expected, read());
+        assertEquals(1, reopened.findHostEntries("ads.example.com").size());
+        assertTrue(reopened.findHostEntries("tracker.example.com").isEmpty());
+    }
+
+    @Test
+    public void sectionThatTableCannotReproduceKeepsOriginalLines() throws IOException {
+        write("127.0.0.1\tlocalhost",
+                "# hosts-subscribe:begin manual",
+                "# 手工添加",
+                "0.0.0.0 ads.example.com",
+                "0.0.0.0\tAds.Example.com alias.example.com",
+                "# hosts-subscribe:end manual");
+        assertTrue(hostsFileService.apply(new HostsTransaction().upsert("new.example.com", Collections.singletonList("10.0.0.8"))));
+        assertEquals(Arrays.asList("127.0.0.1\tlocalhost",
+                "# hosts-subscribe:begin manual",
+                "# 手工添加",
+                "0.0.0.0 ads.example.com",
+                "0.0.0.0\tAds.Example.com alias.example.com",
+                "# hosts-subscribe:end manual",
+                "10.0.0.8\tnew.example.com"), read());
+        assertEquals(2, hostsFileService.getSection("manual").size());
+    }
+
+    @Test
+    public void cacheDetectsOutsideEdits() throws IOException {
+        List<HostsDiff> diffs = new ArrayList<>();
+        hostsFileService.getWatcher().addListener(diffs::add);
+        assertTrue(hostsFileService.findHostEntries("other.example.com").isEmpty());
+
+        write("10.0.0.1 example.com www.example.com # web", "10.0.0.5 other.example.com");
+        assertTrue(hosts.setLastModified(hosts.lastModified() + 2000));
+
+        assertEquals(1, hostsFileService.findHostEntries("other.example.com").size());
+        assertEquals(1, diffs.size());
+        assertEquals(1, diffs.get(0).getAdded().size());
+        assertEquals(2, diffs.get(0).getRemoved().size());
+    }
+
+    @Test
+    public void lineIndexDecodesLinesLazily() throws IOException {
+        Files.write(hosts.toPath(), "# 注释\r\n10.0.0.1 Example.com\r\n  # indented\n::1 v6.example.com".getBytes(StandardCharsets.UTF_8));
+
+        HostsLineIndex index = HostsLineIndex.open(hosts);
+        assertEquals(4, index.lineCount());
+        assertEquals("# 注释", index.line(0));
+        assertTrue(index.isComment(2));
+        assertFalse(index.isComment(3));
+        assertArrayEquals(new int[]{1, 3}, index.findLines("EXAMPLE.COM"));
+        assertArrayEquals(new int[]{1, 3}, index.findEntryLines(""));
+        assertArrayEquals(new int[]{3}, index.findEntryLines("::1"));
+        assertEquals(0, index.findEntryLines("indented").length);
+        assertEquals(Collections.singletonList("::1 v6.example.com"), hostsFileService.searchHostsFile("v6."));
+    }
+
+    @Test
+    public void saveKeepsBackupAndWritesUtf8() throws IOException {
+        List<String> original = read();
+        hostsFileService.updateHostsFile("测试.example.com", Collections.singletonList("10.0.0.3"));
+
+        File backup = new File(hosts.getPath() + ".bak");
+        assertEquals(original, Files.readAllLines(backup.toPath(), StandardCharsets.UTF_8));
+        assertFalse(new File(hosts.getPath() + ".tmp").exists());
+        assertEquals("10.0.0.3\t测试.example.com", read().get(read().size() - 1));
+
+        // 再次保存时备份指向上一版本，而不是被新内容覆盖
+        hostsFileService.deleteHostnameFromHosts("测试.example.com");
+        assertEquals("10.0.0.3\t测试.example.com", Files.readAllLines(backup.toPath(), StandardCharsets.UTF_8).get(original.size()));
+        assertEquals(original, read());
+    }
+
+    @Test
+    public void commitReplaysChangesOnOutsideEditWithinTimestampPrecision() throws IOException {
+        assertEquals(1, hostsFileService.findHostEntries("foo.example.com").size());
+
+        // 同样大小、同样修改时间的外部修改，只能通过校验和发现
+        long modified = hosts.lastModified();
+        write("# comment",
+                "127.0.0.1\tlocalhost",
+                "",
+                "10.0.0.1 example.com www.example.com # web",
+                "10.0.0.9 foo.example.com");
+        assertTrue(hosts.setLastModified(modified));
+
+        hostsFileService.updateHostsFile("bar.example.com", Collections.singletonList("10.0.0.3"));
+        List<String> lines = read();
+        assertEquals("10.0.0.9 foo.example.com", lines.get(4));
+        assertEquals("10.0.0.3\tbar.example.com", lines.get(5));
+    }
+
+    @Test
+    public void commitLockDoesNotFollowSymlinks() throws IOException {
+        File victim = new File(folder.getRoot(), "victim");
+        Files.createSymbolicLink(new File(folder.getRoot(), ".hosts.lock").toPath(), victim.toPath());
+        try {
+            hostsFileService.deleteHostnameFromHosts("foo.example.com");
+            fail("锁文件是符号链接时应拒绝提交");
+        } catch (IOException expected) {
+            // 预期
+        }
+        assertFalse(victim.exists());
+        assertEquals(5, read().size());
+    }
+
+    @Test
+    public void concurrentWritersDoNotLoseUpdates() throws Exception {
+        HostsFileService other = new HostsFileService(hosts);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            HostsFileService service = i % 2 == 0 ? hostsFileService : other;
+            String hostname = "host" + i + ".example.com";
+            futures.add(executor.submit(() -> {
+                service.updateHostsFile(hostname, Collections.singletonList("10.1.0.1"));
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<String> lines = read();
+        for (int i = 0; i < 20; i++) {
+            assertTrue(lines.contains("10.1.0.1\thost" + i + ".example.com"));
+        }
+        assertEquals(25, lines.size());
+    }
+
+    @Test
+    public void roundTripKeepsChineseCommentsUnderGbkDefaultEncoding() throws Exception {
+        File utf8 = folder.newFile("hosts-utf8");
+        Files.write(utf8.toPath(), Arrays.asList("# 公司内网", "10.0.0.1 example.com # 测试"), StandardCharsets.UTF_8);
+        File gbk = folder.newFile("hosts-gbk");
+        Files.write(gbk.toPath(), Arrays.asList("# 公司内网", "10.0.0.1 example.com # 测试"), Charset.forName("GBK"));
+
+        // 在默认编码为 GBK 的 JVM 中读取并写回
+        List<String> command = Arrays.asList(new File(System.getProperty("java.home"), "bin/java").getPath(),
+                "-Dfile.encoding=GBK", "-cp", System.getProperty("java.class.path"),
+                RoundTrip.class.getName(), utf8.getPath(), gbk.getPath());
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(readAll(process.getInputStream()), StandardCharsets.UTF_8);
+        assertEquals(output, 0, process.waitFor());
+
+        List<String> expected = Arrays.asList("# 公司内网", "10.0.0.1 example.com # 测试", "10.0.0.2\tnew.example.com");
+        assertEquals(expected, Files.readAllLines(utf8.toPath(), StandardCharsets.UTF_8));
+        assertEquals(expected, Files.readAllLines(gbk.toPath(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 在子进程中修改给定的 hosts 文件
+     */
+    public static class RoundTrip {
+
+        public static void main(String[] args) throws IOException {
+            if (!"GBK".equalsIgnoreCase(Charset.defaultCharset().name())) {
+                throw new IllegalStateException("默认编码不是GBK: " + Charset.defaultCharset());
+            }
+            for (String path : args) {
+                new HostsFileService(new File(path)).updateHostsFile("new.example.com", Collections.singletonList("10.0.0.2"));
+            }
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void writerProcessAppliesTransactionToLatestContent() throws IOException {
+        HostsTransaction transaction = new HostsTransaction().upsert("测试.example.com", Collections.singletonList("::1"));
+        File transactionFile = folder.newFile("transaction");
+        try (OutputStream out = new FileOutputStream(transactionFile)) {
+            transaction.writeTo(out);
+        }
+        // 变更计算之后、提权写入之前其他程序修改了 hosts
+        List<String> edited = new ArrayList<>(read());
+        edited.add("10.0.0.3 edited.example.com");
+        write(edited.toArray(new String[0]));
+
+        assertEquals(AdminPermissionHelper.WRITER_EXIT_SUCCESS, AdminPermissionHelper.writeHosts(new String[]{
+                AdminPermissionHelper.WRITE_HOSTS_OPTION, "--hosts", hosts.getPath(), "--transaction", transactionFile.getPath()}));
+
+        List<String> expected = new ArrayList<>(edited);
+        expected.add("::1\t测试.example.com");
+        assertEquals(expected, read());
+        assertEquals(AdminPermissionHelper.WRITER_EXIT_FAILED, AdminPermissionHelper.writeHosts(new String[]{
+                AdminPermissionHelper.WRITE_HOSTS_OPTION, "--hosts", hosts.getPath(), "--transaction", hosts.getPath()}));
+    }
+
+    private void write(String... lines) throws IOException {
+        Files.write(hosts.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+
+    private List<String> read() throws IOException {
+        return Files.readAllLines(hosts.toPath(), StandardCharsets.UTF_8);
+    }
+}
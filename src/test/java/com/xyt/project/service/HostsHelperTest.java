@@ -0,0 +1,164 @@
+package com.xyt.project.service;
+
+import com.xyt.project.Launcher;
+import com.xyt.project.model.HostEntry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class HostsHelperTest {
+
+    private static final String TOKEN = "0123456789abcdef";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File hosts;
+
+    private HostsHelperServer server;
+
+    private Thread serverThread;
+
+    @Before
+    public void setUp() throws IOException {
+        hosts = folder.newFile("hosts");
+        Files.write(hosts.toPath(), Arrays.asList("127.0.0.1 localhost", "10.0.0.1 old.example.com"), StandardCharsets.UTF_8);
+        server = new HostsHelperServer(new HostsFileService(hosts), TOKEN);
+        serverThread = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        serverThread.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+        serverThread.join(5000);
+    }
+
+    @Test
+    public void appliesBatchesOverOneConnection() throws Exception {
+        try (HostsHelperClient client = HostsHelperClient.connect(server.getPort(), TOKEN)) {
+            assertTrue(client.apply(new HostsTransaction()
+                    .upsert("new.example.com", Collections.singletonList("::1"))
+                    .delete("old.example.com")));
+            assertFalse(client.apply(new HostsTransaction().delete("missing.example.com")));
+            List<HostEntry> section = Collections.singletonList(
+                    new HostEntry("10.0.0.2", "ads.example.com", null, " 订阅", -1));
+            assertTrue(client.apply(new HostsTransaction().replaceSection("ads", section)));
+        }
+        serverThread.join(5000);
+        assertFalse("客户端断开后助手退出", serverThread.isAlive());
+
+        assertEquals(Arrays.asList("127.0.0.1 localhost",
+                "::1\tnew.example.com",
+                "# hosts-subscribe:begin ads",
+                "10.0.0.2\tads.example.com # 订阅",
+                "# hosts-subscribe:end ads"),
+                Files.readAllLines(hosts.toPath(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void rejectsWrongTokenAndKeepsWaiting() throws Exception {
+        try {
+            HostsHelperClient.connect(server.getPort(), "wrong");
+            fail("令牌不正确时应拒绝连接");
+        } catch (IOException expected) {
+            // 预期
+        }
+        assertTrue(serverThread.isAlive());
+        try (HostsHelperClient client = HostsHelperClient.connect(server.getPort(), TOKEN)) {
+            assertTrue(client.apply(new HostsTransaction().delete("old.example.com")));
+        }
+    }
+
+    @Test
+    public void closesConnectionWhenHelperStopsResponding() throws Exception {
+        try (ServerSocket silent = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Thread acceptor = new Thread(() -> {
+                try (Socket socket = silent.accept()) {
+                    new DataInputStream(socket.getInputStream()).readUTF();
+                    DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                    out.writeByte(HostsHelperProtocol.STATUS_READY);
+                    out.flush();
+                    // 收到变更后不回复，直到客户端断开
+                    while (socket.getInputStream().read() >= 0) {
+                        // 丢弃
+                    }
+                } catch (IOException ignored) {
+                    // 客户端断开
+                }
+            });
+            acceptor.start();
+            HostsHelperClient client = HostsHelperClient.connect(silent.getLocalPort(), TOKEN, 500);
+            long start = System.nanoTime();
+            try {
+                client.apply(new HostsTransaction().delete("old.example.com"));
+                fail("助手不回复时应超时");
+            } catch (IOException expected) {
+                // 预期
+            }
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+            assertTrue("超时后关闭连接，调用方改用单次提权写入", client.isClosed());
+            acceptor.join(5000);
+        }
+    }
+
+    @Test
+    public void helperProcessAppliesTransactions() throws Exception {
+        File dir = folder.newFolder("app");
+        Path portFile = dir.toPath().resolve(HostsHelperServer.PORT_FILE);
+        Files.write(dir.toPath().resolve(HostsHelperServer.TOKEN_FILE), TOKEN.getBytes(StandardCharsets.UTF_8));
+        Process process = new ProcessBuilder(
+                new File(System.getProperty("java.home"), "bin/java").getPath(),
+                "-cp", System.getProperty("java.class.path"),
+                Launcher.class.getName(), HostsHelperServer.HELPER_OPTION,
+                "--dir", dir.getPath(), "--hosts", hosts.getPath())
+                .redirectErrorStream(true)
+                .redirectOutput(new File(dir, "helper.log"))
+                .start();
+        try {
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (!Files.exists(portFile)) {
+                assertTrue("助手未写出端口", System.currentTimeMillis() < deadline && process.isAlive());
+                Thread.sleep(100);
+            }
+            int port = Integer.parseInt(new String(Files.readAllBytes(portFile), StandardCharsets.UTF_8).trim());
+            try (HostsHelperClient client = HostsHelperClient.connect(port, TOKEN)) {
+                assertTrue(client.apply(new HostsTransaction()
+                        .upsert("new.example.com", Collections.singletonList("::1"))
+                        .delete("old.example.com")));
+            }
+            assertTrue("客户端断开后助手进程退出", process.waitFor(30, TimeUnit.SECONDS));
+            assertEquals(0, process.exitValue());
+            assertFalse("助手退出时删除端口文件", Files.exists(portFile));
+            assertEquals(Arrays.asList("127.0.0.1 localhost", "::1\tnew.example.com"),
+                    Files.readAllLines(hosts.toPath(), StandardCharsets.UTF_8));
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+}
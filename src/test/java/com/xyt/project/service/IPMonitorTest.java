@@ -0,0 +1,56 @@
+package com.xyt.project.service;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class IPMonitorTest {
+
+    @Test
+    public void triggerDuringCheckRunsAnotherCheck() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch secondDone = new CountDownLatch(1);
+        IPMonitor monitor = new IPMonitor(() -> {
+            int run = runs.incrementAndGet();
+            if (run == 1) {
+                firstStarted.countDown();
+                releaseFirst.await();
+            } else if (run == 2) {
+                secondDone.countDown();
+            }
+        }, 1, TimeUnit.HOURS);
+        try {
+            monitor.start();
+            assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+            monitor.triggerNow();
+            releaseFirst.countDown();
+            assertTrue(secondDone.await(5, TimeUnit.SECONDS));
+        } finally {
+            monitor.shutdown();
+        }
+    }
+
+    @Test
+    public void errorInCheckKeepsMonitorScheduled() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch retried = new CountDownLatch(1);
+        IPMonitor monitor = new IPMonitor(() -> {
+            if (runs.incrementAndGet() == 1) {
+                throw new NoClassDefFoundError("test");
+            }
+            retried.countDown();
+        }, 10, TimeUnit.MILLISECONDS);
+        try {
+            monitor.start();
+            assertTrue(retried.await(5, TimeUnit.SECONDS));
+        } finally {
+            monitor.shutdown();
+        }
+    }
+}
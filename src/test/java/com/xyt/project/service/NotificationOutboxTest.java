@@ -0,0 +1,87 @@
+package com.xyt.project.service;
+
+import com.xyt.project.model.IPAddress;
+import com.xyt.project.model.IPDiff;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+public class NotificationOutboxTest {
+
+    private static final IPAddress A = IPAddress.parse("2001:db8::a");
+
+    private static final IPAddress B = IPAddress.parse("2001:db8::b");
+
+    private static final IPAddress C = IPAddress.parse("2001:db8::c");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<IPDiff> sent = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void coalescesChangesOfSameDevice() throws Exception {
+        try (NotificationOutbox outbox = new NotificationOutbox(folder.getRoot(), (device, diff) -> sent.add(diff), 200)) {
+            outbox.enqueue("nas", diff(Collections.singletonList(A), Collections.singletonList(B)));
+            outbox.enqueue("nas", diff(Collections.singletonList(B), Collections.singletonList(C)));
+            awaitEmpty(outbox);
+        }
+        assertEquals(1, sent.size());
+        assertEquals(Collections.singletonList(C), sent.get(0).getAdded());
+        assertEquals(Collections.singletonList(A), sent.get(0).getRemoved());
+        assertFalse(new File(folder.getRoot(), NotificationOutbox.OUTBOX_FILE_NAME).exists());
+    }
+
+    @Test
+    public void dropsChangeThatFlappedBack() throws Exception {
+        try (NotificationOutbox outbox = new NotificationOutbox(folder.getRoot(), (device, diff) -> sent.add(diff), 200)) {
+            outbox.enqueue("nas", diff(Collections.singletonList(A), Collections.singletonList(B)));
+            outbox.enqueue("nas", diff(Collections.singletonList(B), Collections.singletonList(A)));
+            awaitEmpty(outbox);
+        }
+        assertTrue(sent.isEmpty());
+    }
+
+    @Test
+    public void keepsFailedNotificationsAcrossRestart() throws Exception {
+        try (NotificationOutbox outbox = new NotificationOutbox(folder.getRoot(), (device, diff) -> {
+            throw new IllegalStateException("smtp down");
+        }, 0)) {
+            outbox.enqueue("nas", diff(Collections.singletonList(A), Arrays.asList(A, B)));
+            Thread.sleep(200);
+            assertEquals(1, outbox.size());
+        }
+
+        try (NotificationOutbox outbox = new NotificationOutbox(folder.getRoot(), (device, diff) -> sent.add(diff))) {
+            awaitEmpty(outbox);
+        }
+        assertEquals(1, sent.size());
+        assertEquals(Collections.singletonList(B), sent.get(0).getAdded());
+    }
+
+    private static IPDiff diff(List<IPAddress> before, List<IPAddress> after) {
+        Map<IPAddress, IPAddress> previous = new LinkedHashMap<>();
+        for (IPAddress address : before) {
+            previous.put(address, address);
+        }
+        return IPDiff.between(previous, after);
+    }
+
+    private static void awaitEmpty(NotificationOutbox outbox) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (outbox.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, outbox.size());
+    }
+}
@@ -0,0 +1,259 @@
+package com.xyt.project.service;
+
+import com.sun.net.httpserver.HttpServer;
+import com.xyt.project.model.HostEntry;
+import com.xyt.project.model.HostsFile;
+import com.xyt.project.model.Subscription;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SubscriptionServiceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+
+    private volatile String body;
+
+    private volatile String etag;
+
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    private File hosts;
+
+    private String configDir;
+
+    private SubscriptionService subscriptionService;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/hosts", exchange -> {
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(3000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.createContext("/trickle", exchange -> {
+            // 每隔一段时间发送一行，读取超时不会触发
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = 0; i < 100; i++) {
+                    out.write(("0.0.0.0 trickle" + i + ".example.com\n").getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    Thread.sleep(200);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.createContext("/other", exchange -> {
+            byte[] bytes = "0.0.0.0 ads.example.com other.example.com\n".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.createContext("/fixed", exchange -> {
+            if ("\"f\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            byte[] bytes = "0.0.0.0 moved.example.com fixed.example.com\n".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("ETag", "\"f\"");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        hosts = folder.newFile("hosts");
+        Files.write(hosts.toPath(), Arrays.asList("127.0.0.1\tlocalhost", "10.0.0.1 example.com"), StandardCharsets.UTF_8);
+        configDir = folder.newFolder("app").getPath();
+        subscriptionService = new SubscriptionService(new HostsFileService(hosts));
+        subscriptionService.saveSubscriptions(Collections.singletonList(
+                new Subscription("ads", "http://127.0.0.1:" + server.getAddress().getPort() + "/hosts")), configDir);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void refreshWithoutSubscriptionsDoesNothing() throws IOException {
+        String emptyDir = folder.newFolder("empty").getPath();
+        List<String> before = Files.readAllLines(hosts.toPath(), StandardCharsets.UTF_8);
+        assertFalse(subscriptionService.refresh(emptyDir));
+        assertEquals(before, Files.readAllLines(hosts.toPath(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void unchangedSubscriptionCostsOne304AndNoWrites() throws IOException {
+        body = "# ad list\n127.0.0.1 localhost\n0.0.0.0 ads.example.com tracker.example.com\n0.0.0.0 ADS.example.com\n";
+        etag = "\"v1\"";
+        assertTrue(subscriptionService.refresh(configDir));
+        assertEquals(Arrays.asList("127.0.0.1\tlocalhost",
+                "10.0.0.1 example.com",
+                "# hosts-subscribe:begin ads",
+                "0.0.0.0\tads.example.com",
+                "0.0.0.0\ttracker.example.com",
+                "# hosts-subscribe:end ads"), read());
+
+        long hostsModified = hosts.lastModified();
+        File config = new File(configDir, "subscription_config.properties");
+        long configModified = config.lastModified();
+        assertFalse(subscriptionService.refresh(configDir));
+        assertEquals(1, notModified.get());
+        assertEquals(hostsModified, hosts.lastModified());
+        assertEquals(configModified, config.lastModified());
+
+        body = "0.0.0.0 new.example.com\n";
+        etag = "\"v2\"";
+        assertTrue(subscriptionService.refresh(configDir));
+        assertEquals(Arrays.asList("127.0.0.1\tlocalhost",
+                "10.0.0.1 example.com",
+                "# hosts-subscribe:begin ads",
+                "0.0.0.0\tnew.example.com",
+                "# hosts-subscribe:end ads"), read());
+        assertEquals("\"v2\"", subscriptionService.loadSubscriptions(configDir).get(0).getEtag());
+    }
+
+    @Test
+    public void pipelineIsolatesSlowSourceAndDedupes() throws IOException {
+        body = "0.0.0.0 ads.example.com\n";
+        etag = "\"v1\"";
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        SubscriptionPipeline pipeline = new SubscriptionPipeline(subscriptionService, 3, 1000);
+        try {
+            SubscriptionPipeline.Result result = pipeline.fetchAll(Arrays.asList(
+                    new Subscription("a", base + "/hosts"),
+                    new Subscription("b", base + "/slow"),
+                    new Subscription("c", base + "/other")), folder.newFolder("cache"));
+
+            assertEquals(Collections.singletonList("b"), result.getFailures());
+            assertEquals(Arrays.asList("a", "c"), result.getUpdated());
+            HostsTransaction transaction = result.getTransaction();
+            assertEquals(2, transaction.size());
+            HostsFile merged = new HostsFile();
+            transaction.applyTo(merged);
+            assertEquals(1, merged.find("ads.example.com").size());
+            assertEquals(Collections.singletonList("other.example.com"), hostnames(merged.getSection("c")));
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    public void pipelineAbandonsSourceThatKeepsTrickling() throws IOException {
+        body = "0.0.0.0 ads.example.com\n";
+        etag = "\"v1\"";
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        SubscriptionPipeline pipeline = new SubscriptionPipeline(subscriptionService, 2, 1000);
+        try {
+            long start = System.nanoTime();
+            SubscriptionPipeline.Result result = pipeline.fetchAll(Arrays.asList(
+                    new Subscription("t", base + "/trickle"),
+                    new Subscription("a", base + "/hosts")), folder.newFolder("cache"));
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertTrue("截止时间到达后不再等待: " + elapsedMillis, elapsedMillis < 3000);
+            assertEquals(Collections.singletonList("t"), result.getFailures());
+            assertEquals(Collections.singletonList("a"), result.getUpdated());
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    public void dedupesFromLatestContentOfEverySource() throws IOException {
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        List<Subscription> subscriptions = Arrays.asList(
+                new Subscription("ads", base + "/hosts"),
+                new Subscription("fixed", base + "/fixed"));
+        subscriptionService.saveSubscriptions(subscriptions, configDir);
+
+        body = "0.0.0.0 ads.example.com moved.example.com\n";
+        etag = "\"v1\"";
+        assertTrue(subscriptionService.refresh(configDir));
+        assertEquals(Collections.singletonList("fixed.example.com"),
+                hostnames(subscriptionService.getHostsFileService().getSection("fixed")));
+
+        // moved.example.com 从排序靠前的订阅中移除，未变化（304）的订阅应重新包含它
+        body = "0.0.0.0 ads.example.com\n";
+        etag = "\"v2\"";
+        assertTrue(subscriptionService.refresh(configDir));
+        assertEquals(1, notModified.get());
+        assertEquals(Arrays.asList("moved.example.com", "fixed.example.com"),
+                hostnames(subscriptionService.getHostsFileService().getSection("fixed")));
+    }
+
+    @Test
+    public void rejectsNonHttpUrls() throws IOException {
+        subscriptionService.saveSubscriptions(Arrays.asList(
+                new Subscription("ads", "http://127.0.0.1:" + server.getAddress().getPort() + "/hosts"),
+                new Subscription("local", hosts.toURI().toString())), configDir);
+        List<Subscription> subscriptions = subscriptionService.loadSubscriptions(configDir);
+        assertEquals(1, subscriptions.size());
+        assertEquals("ads", subscriptions.get(0).getName());
+
+        try {
+            subscriptionService.fetch(new Subscription("ftp", "ftp://127.0.0.1/hosts"));
+            fail();
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("http/https"));
+        }
+    }
+
+    private static List<String> hostnames(List<HostEntry> entries) {
+        List<String> names = new ArrayList<>();
+        for (HostEntry entry : entries) {
+            names.add(entry.getHostname());
+        }
+        return names;
+    }
+
+    private List<String> read() throws IOException {
+        return Files.readAllLines(hosts.toPath(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,38 @@
+package com.xyt.project.util;
+
+import com.xyt.project.model.HostsFile;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class HostsLineTokenizerTest {
+
+    @Test
+    public void matchesWholeHostnameTokensOnly() throws Exception {
+        HostsFile hostsFile = HostsFile.parse(new BufferedReader(new StringReader(
+                "10.0.0.1\tEXAMPLE.com www.example.com\n"
+                        + "10.0.0.2 foo.example.com\n"
+                        + "# 10.0.0.3 example.com\n"
+                        + "  10.0.0.4 a.example.com example.com#web\n")));
+        assertEquals(2, hostsFile.find("example.com").size());
+        assertEquals("10.0.0.1", hostsFile.find("example.com").get(0).getIp());
+        assertEquals("10.0.0.4", hostsFile.find("example.com").get(1).getIp());
+        assertEquals(1, hostsFile.find("foo.example.com").size());
+    }
+
+    @Test
+    public void splitsTokensAndComment() {
+        HostsLineTokenizer tokenizer = new HostsLineTokenizer().reset(" ::1 \t localhost  ip6-localhost # loopback");
+        assertTrue(tokenizer.next());
+        assertEquals("::1", tokenizer.token());
+        assertTrue(tokenizer.next());
+        assertEquals("localhost", tokenizer.token());
+        assertTrue(tokenizer.next());
+        assertEquals("ip6-localhost", tokenizer.token());
+        assertFalse(tokenizer.next());
+        assertEquals(" loopback", tokenizer.comment());
+    }
+}
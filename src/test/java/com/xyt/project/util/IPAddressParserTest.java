@@ -0,0 +1,59 @@
+package com.xyt.project.util;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IPAddressParserTest {
+
+    @Test
+    public void parsesSameValueAsInetAddress() throws Exception {
+        String[] addresses = {
+                "::", "::1", "1::", "2001:db8::8a2e:370:7334", "2001:0db8:0000:0000:0000:ff00:0042:8329",
+                "fe80::1:2:3:4:5", "1:2:3:4:5:6:7::", "::ffff:192.168.1.1", "64:ff9b::10.0.0.1",
+                "1:2:3:4:5:6:1.2.3.4", "ABCD:EF01::FFFF"};
+        IPAddressParser parser = new IPAddressParser();
+        for (String address : addresses) {
+            assertTrue(address, parser.parse(address));
+            assertFalse(address, parser.isIPv4());
+            ByteBuffer expected = ByteBuffer.wrap(toIPv6Bytes(InetAddress.getByName(address).getAddress()));
+            assertEquals(address, expected.getLong(0), parser.hi());
+            assertEquals(address, expected.getLong(8), parser.lo());
+        }
+
+        assertTrue(parser.parse("192.168.1.254"));
+        assertTrue(parser.isIPv4());
+        assertEquals(0xC0A801FE, parser.ipv4());
+    }
+
+    @Test
+    public void rejectsMalformedAddresses() {
+        String[] invalid = {
+                "", ":", ":1", "1:", ":::", "1:::2", "1::2::3", "1:2:3:4:5:6:7:8:9", "1:2:3:4:5:6:7",
+                "12345::", "g::1", "::1.2.3", "::1.2.3.256", "1.2.3.4::", "1:2:3:4:5:6:7:1.2.3.4", "fe80::1%eth0",
+                "1.2.3", "1.2.3.4.", "1.2.3.4.5", "256.1.1.1", "+1.2.3.4", "1..2.3", "0001.2.3.4", "a.b.c.d"};
+        for (String address : invalid) {
+            assertFalse(address, IPAddressParser.isValid(address));
+        }
+        assertTrue(IPAddressParser.isValidIPv4("0.0.0.0"));
+        assertFalse(IPAddressParser.isValidIPv4("::1"));
+        assertFalse(IPAddressParser.isValidIPv6("1.2.3.4"));
+    }
+
+    private static byte[] toIPv6Bytes(byte[] address) {
+        if (address.length == 16) {
+            return address;
+        }
+        // InetAddress 会把 ::ffff:a.b.c.d 转成IPv4
+        byte[] mapped = new byte[16];
+        mapped[10] = (byte) 0xff;
+        mapped[11] = (byte) 0xff;
+        System.arraycopy(address, 0, mapped, 12, 4);
+        return mapped;
+    }
+}